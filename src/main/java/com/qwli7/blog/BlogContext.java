@@ -1,6 +1,8 @@
 package com.qwli7.blog;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * @author qwli7
@@ -37,9 +39,32 @@ public class BlogContext {
     public static void clear() {
         AUTHENTICATE_THREAD_LOCAL.remove();
         IP_THREAD_LOCAL.remove();
+        RequestIdentityMap.clear();
     }
 
     public static Boolean isAuthenticated() {
         return AUTHENTICATE_THREAD_LOCAL.get() != null && AUTHENTICATE_THREAD_LOCAL.get();
     }
+
+    /**
+     * 包装成在其他线程中执行的任务，执行时带上当前线程的登录状态、ip 和请求内的实体映射，执行完成后清除
+     * @param supplier supplier
+     * @param <T> T
+     * @return Supplier
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+        final Boolean authenticated = AUTHENTICATE_THREAD_LOCAL.get();
+        final String ip = IP_THREAD_LOCAL.get();
+        final Map<RequestIdentityMap.Key, Optional<?>> identityMap = RequestIdentityMap.get();
+        return () -> {
+            AUTHENTICATE_THREAD_LOCAL.set(authenticated);
+            IP_THREAD_LOCAL.set(ip);
+            RequestIdentityMap.set(identityMap);
+            try {
+                return supplier.get();
+            } finally {
+                clear();
+            }
+        };
+    }
 }
@@ -31,6 +31,8 @@ public class BlogContextFilter implements Filter {
         logger.info("method<doFilter> enter into ContextFilter");
         try{
             final HttpServletRequest request = (HttpServletRequest) servletRequest;
+            // 同一个请求中相同的文章、动态只查询一次
+            RequestIdentityMap.begin();
 
             String ipHeader = blogProperties.getIpHeader();
             String ip;
@@ -0,0 +1,52 @@
+package com.qwli7.blog;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存配置
+ * 分类、标签、模板数据量小且很少变化，但是访问频繁，使用有界的本地缓存
+ * @author liqiwen
+ * @since 2.5
+ */
+@Configuration
+public class CacheConfiguration {
+
+    /**
+     * 分类缓存
+     */
+    public static final String CATEGORY_CACHE = "category";
+
+    /**
+     * 标签缓存
+     */
+    public static final String TAG_CACHE = "tag";
+
+    /**
+     * 模板缓存
+     */
+    public static final String TEMPLATE_CACHE = "template";
+
+    /**
+     * 缓存管理器
+     * 使用 TransactionAwareCacheManagerProxy 包装，缓存的清除在事务提交之后才执行，
+     * 避免事务提交前其他请求读取到旧数据并重新放入缓存
+     * @return CacheManager
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(30, TimeUnit.MINUTES));
+        cacheManager.setCacheNames(Arrays.asList(CATEGORY_CACHE, TAG_CACHE, TEMPLATE_CACHE));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
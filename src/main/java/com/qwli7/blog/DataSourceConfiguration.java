@@ -0,0 +1,87 @@
+package com.qwli7.blog;
+
+import com.qwli7.blog.datasource.ReadWriteRoutingDataSource;
+import com.qwli7.blog.datasource.ReplicaDataSourceProperties;
+import com.qwli7.blog.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * 读写分离数据源配置
+ * 主库使用 spring.datasource 配置，从库使用 blog.datasource.replica 配置，
+ * 只读事务(@Transactional(readOnly = true))路由到从库
+ * @author liqiwen
+ * @since 2.5
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "blog.datasource.replica", name = "url")
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+public class DataSourceConfiguration {
+
+    /**
+     * 主库连接池
+     * @param properties spring.datasource 配置
+     * @return HikariDataSource
+     */
+    @Bean(destroyMethod = "close")
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * 从库连接池
+     * @param properties blog.datasource.replica 配置
+     * @return HikariDataSource
+     */
+    @Bean(destroyMethod = "close")
+    public HikariDataSource replicaDataSource(ReplicaDataSourceProperties properties) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(properties.getUrl());
+        dataSource.setUsername(properties.getUsername());
+        dataSource.setPassword(properties.getPassword());
+        if(properties.getDriverClassName() != null) {
+            dataSource.setDriverClassName(properties.getDriverClassName());
+        }
+        dataSource.setMaximumPoolSize(properties.getMaximumPoolSize());
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(HikariDataSource primaryDataSource,
+                                                                 HikariDataSource replicaDataSource) {
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource);
+    }
+
+    /**
+     * 应用使用的数据源
+     * DataSourceTransactionManager 在设置事务只读属性之前就会获取连接，
+     * 使用 LazyConnectionDataSourceProxy 延迟到第一次执行语句时才真正获取连接，此时才能正确路由
+     * @param readWriteRoutingDataSource readWriteRoutingDataSource
+     * @return DataSource
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReadWriteRoutingDataSource readWriteRoutingDataSource,
+                                               ReplicaDataSourceProperties properties) {
+        return new ReplicaLagMonitor(readWriteRoutingDataSource, properties.getLagQuery(), properties.getMaxLagSeconds());
+    }
+}
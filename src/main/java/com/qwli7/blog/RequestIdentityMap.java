@@ -0,0 +1,138 @@
+package com.qwli7.blog;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 请求内的实体映射
+ * 同一个请求中按 id 或者别名查询同一个实体时只查询一次数据库，不同的业务类之间共享，
+ * 由 BlogContextFilter 开启，请求结束时清除
+ * <p>
+ * 1. 返回的是同一个实例，需要修改实体（例如转换内容）时先复制
+ * 2. 读写事务中的查询不使用也不保存映射，并且移除已有的映射，避免写入之后读到旧的数据
+ * 3. 不在请求中（定时任务等）时直接查询
+ * @author liqiwen
+ * @since 2.5
+ */
+public final class RequestIdentityMap {
+
+    private static final ThreadLocal<Map<Key, Optional<?>>> MAP_THREAD_LOCAL = new ThreadLocal<>();
+
+    private RequestIdentityMap() {
+        super();
+    }
+
+    /**
+     * 开启当前请求的映射
+     */
+    public static void begin() {
+        MAP_THREAD_LOCAL.set(new ConcurrentHashMap<>());
+    }
+
+    public static void clear() {
+        MAP_THREAD_LOCAL.remove();
+    }
+
+    /**
+     * 按 id 查询实体
+     * @param type 实体类型
+     * @param id id
+     * @param loader 查询数据库
+     * @param <T> T
+     * @return Optional
+     */
+    public static <T> Optional<T> findById(Class<T> type, Object id, Supplier<Optional<T>> loader) {
+        return find(new Key(type, "id", id), loader, null, null);
+    }
+
+    /**
+     * 按别名查询实体，查到之后同时按 id 记录，之后按 id 查询时不再查询数据库
+     * @param type 实体类型
+     * @param alias alias
+     * @param loader 查询数据库
+     * @param idGetter 获取实体的 id
+     * @param <T> T
+     * @return Optional
+     */
+    public static <T> Optional<T> findByAlias(Class<T> type, String alias, Supplier<Optional<T>> loader,
+                                              Function<T, Object> idGetter) {
+        return find(new Key(type, "alias", alias), loader, type, idGetter);
+    }
+
+    private static <T> Optional<T> find(Key key, Supplier<Optional<T>> loader, Class<T> type,
+                                        Function<T, Object> idGetter) {
+        final Map<Key, Optional<?>> map = MAP_THREAD_LOCAL.get();
+        if(map == null) {
+            return loader.get();
+        }
+        if(TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            map.remove(key);
+            return loader.get();
+        }
+        @SuppressWarnings("unchecked")
+        Optional<T> entityOp = (Optional<T>) map.get(key);
+        if(entityOp == null) {
+            entityOp = loader.get();
+            map.put(key, entityOp);
+            if(idGetter != null && entityOp.isPresent()) {
+                map.putIfAbsent(new Key(type, "id", idGetter.apply(entityOp.get())), entityOp);
+            }
+        }
+        return entityOp;
+    }
+
+    /**
+     * 当前线程的映射，用于传递给执行同一个请求中任务的其他线程
+     * @return Map 不在请求中时为 null
+     */
+    static Map<Key, Optional<?>> get() {
+        return MAP_THREAD_LOCAL.get();
+    }
+
+    static void set(Map<Key, Optional<?>> map) {
+        if(map == null) {
+            MAP_THREAD_LOCAL.remove();
+        } else {
+            MAP_THREAD_LOCAL.set(map);
+        }
+    }
+
+    static final class Key {
+
+        private final Class<?> type;
+
+        private final String field;
+
+        private final Object value;
+
+        private Key(Class<?> type, String field, Object value) {
+            this.type = type;
+            this.field = field;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return type.equals(key.type) && field.equals(key.field) && Objects.equals(value, key.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, field, value);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.qwli7.blog.component;
+
+import com.qwli7.blog.BlogContext;
+import com.qwli7.blog.event.ArticleBatchDeleteEvent;
+import com.qwli7.blog.event.ArticleDeleteEvent;
+import com.qwli7.blog.event.ArticlePostEvent;
+import com.qwli7.blog.event.ArticleUpdateEvent;
+import com.qwli7.blog.event.CategoryChangeEvent;
+import com.qwli7.blog.event.CategoryDeleteEvent;
+import com.qwli7.blog.event.CheckCommentEvent;
+import com.qwli7.blog.event.CommentPostEvent;
+import com.qwli7.blog.event.MomentDeleteEvent;
+import com.qwli7.blog.event.MomentPostEvent;
+import com.qwli7.blog.event.MomentUpdateEvent;
+import com.qwli7.blog.event.TagChangeEvent;
+import com.qwli7.blog.event.TagDeleteEvent;
+import com.qwli7.blog.event.TemplateChangeEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 内容版本
+ * 记录各个模块最后一次变更的时间，用于计算 Last-Modified 和 ETag，
+ * 变更时间精确到秒并且严格递增，同一秒内的多次变更也能被客户端感知
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class ContentVersions {
+
+    public static final String ARTICLE = "article";
+
+    public static final String MOMENT = "moment";
+
+    public static final String COMMENT = "comment";
+
+    public static final String CATEGORY = "category";
+
+    public static final String TAG = "tag";
+
+    public static final String TEMPLATE = "template";
+
+    private static final String[] ALL_MODULES = {ARTICLE, MOMENT, COMMENT, CATEGORY, TAG, TEMPLATE};
+
+    private static final long SECOND = 1000;
+
+    /**
+     * 模块 -> 最后变更时间
+     */
+    private final Map<String, AtomicLong> versionMap = new ConcurrentHashMap<>();
+
+    public ContentVersions() {
+        // 启动之前的变更时间未知，以启动时间作为初始版本
+        final long startAt = ceilToSecond(System.currentTimeMillis());
+        for(String module: ALL_MODULES) {
+            versionMap.put(module, new AtomicLong(startAt));
+        }
+    }
+
+    /**
+     * 获取多个模块中最后的变更时间
+     * @param modules modules
+     * @return long
+     */
+    public long lastModified(String... modules) {
+        long lastModified = 0;
+        for(String module: modules) {
+            lastModified = Math.max(lastModified, getVersion(module).get());
+        }
+        return lastModified;
+    }
+
+    /**
+     * 获取所有模块中最后的变更时间
+     * @return long
+     */
+    public long lastModified() {
+        return lastModified(ALL_MODULES);
+    }
+
+    /**
+     * 根据多个模块的版本生成弱 ETag
+     * 登录与未登录看到的内容不同，ETag 也不同
+     * @param modules modules
+     * @return String
+     */
+    public String etag(String... modules) {
+        StringBuilder sb = new StringBuilder("W/\"");
+        for(String module: modules) {
+            sb.append(Long.toHexString(getVersion(module).get() / SECOND)).append('-');
+        }
+        sb.append(BlogContext.isAuthenticated() ? 'a' : 'g').append('"');
+        return sb.toString();
+    }
+
+    /**
+     * 模块发生了变更
+     * @param module module
+     */
+    public void touch(String module) {
+        final long now = ceilToSecond(System.currentTimeMillis());
+        getVersion(module).updateAndGet(prev -> Math.max(now, prev + SECOND));
+    }
+
+    /**
+     * 所有模块
+     * @return String[]
+     */
+    public static String[] allModules() {
+        return ALL_MODULES.clone();
+    }
+
+    /**
+     * 是否是已知的模块
+     * @param module module
+     * @return boolean
+     */
+    public static boolean isModule(String module) {
+        for(String known: ALL_MODULES) {
+            if(known.equals(module)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * LocalDateTime 转换为毫秒，用于实体的 Last-Modified
+     * @param time time
+     * @return 毫秒，time 为空时返回 -1
+     */
+    public static long toMillis(LocalDateTime time) {
+        return time == null ? -1 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @TransactionalEventListener(value = {ArticlePostEvent.class, ArticleUpdateEvent.class, ArticleDeleteEvent.class,
+            ArticleBatchDeleteEvent.class}, fallbackExecution = true)
+    public void onArticleChange() {
+        touch(ARTICLE);
+    }
+
+    @TransactionalEventListener(value = {MomentPostEvent.class, MomentUpdateEvent.class, MomentDeleteEvent.class},
+            fallbackExecution = true)
+    public void onMomentChange() {
+        touch(MOMENT);
+    }
+
+    @TransactionalEventListener(value = {CommentPostEvent.class, CheckCommentEvent.class}, fallbackExecution = true)
+    public void onCommentChange() {
+        touch(COMMENT);
+    }
+
+    @TransactionalEventListener(value = {CategoryChangeEvent.class, CategoryDeleteEvent.class}, fallbackExecution = true)
+    public void onCategoryChange() {
+        touch(CATEGORY);
+    }
+
+    @TransactionalEventListener(value = {TagChangeEvent.class, TagDeleteEvent.class}, fallbackExecution = true)
+    public void onTagChange() {
+        touch(TAG);
+    }
+
+    @TransactionalEventListener(value = TemplateChangeEvent.class, fallbackExecution = true)
+    public void onTemplateChange() {
+        touch(TEMPLATE);
+    }
+
+    private AtomicLong getVersion(String module) {
+        final AtomicLong version = versionMap.get(module);
+        if(version == null) {
+            throw new IllegalArgumentException("unknown content module: " + module);
+        }
+        return version;
+    }
+
+    private static long ceilToSecond(long millis) {
+        return (millis + SECOND - 1) / SECOND * SECOND;
+    }
+}
@@ -0,0 +1,322 @@
+package com.qwli7.blog.component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.qwli7.blog.entity.Article;
+import com.qwli7.blog.entity.ArticleStatus;
+import com.qwli7.blog.entity.Comment;
+import com.qwli7.blog.entity.CommentModule;
+import com.qwli7.blog.entity.Moment;
+import com.qwli7.blog.event.*;
+import com.qwli7.blog.mapper.ArticleMapper;
+import com.qwli7.blog.mapper.MomentMapper;
+import org.springframework.beans.BeanUtils;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 文章、动态缓存
+ * 1. 按 id 和别名缓存已发布的文章和动态，第一次查询之后直接从内存中获取
+ * 2. 写入一段时间之后再次访问时异步从数据库刷新，经常访问的数据不会因为过期而回到数据库查询
+ * 3. 文章、动态新增、修改、删除以及评论发布、审核通过提交之后移除对应的缓存
+ * 4. 查询数据库期间发生过移除的不放入缓存，以免移除之前查到的旧数据在移除之后放入缓存
+ * 5. 点击量写入数据库之后，写入的部分单独累加在缓存项上，读取时合并，不修改缓存的实体，
+ *    以免每次写入点击量都重置缓存的写入时间，导致经常访问的数据永远不会刷新
+ * <p>
+ * 返回的是缓存中的实例，需要修改时先复制；读写事务中不使用缓存
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class EntityCache {
+
+    private final EntityCacheProperties entityCacheProperties;
+
+    private final ArticleMapper articleMapper;
+
+    private final MomentMapper momentMapper;
+
+    private final Store<Article> articleStore;
+
+    private final Store<Moment> momentStore;
+
+    public EntityCache(EntityCacheProperties entityCacheProperties, ArticleMapper articleMapper,
+                       MomentMapper momentMapper) {
+        this.entityCacheProperties = entityCacheProperties;
+        this.articleMapper = articleMapper;
+        this.momentMapper = momentMapper;
+        this.articleStore = new Store<>(entityCacheProperties, articleMapper::findById, Article::getId,
+                Article::getAlias, article -> ArticleStatus.POST.equals(article.getStatus()),
+                (article, delta) -> {
+                    final Article copy = new Article();
+                    BeanUtils.copyProperties(article, copy);
+                    copy.setHits((article.getHits() == null ? 0 : article.getHits()) + delta);
+                    return copy;
+                });
+        this.momentStore = new Store<>(entityCacheProperties, momentMapper::findById, Moment::getId,
+                moment -> null, moment -> true,
+                (moment, delta) -> {
+                    final Moment copy = new Moment();
+                    BeanUtils.copyProperties(moment, copy);
+                    copy.setHits((moment.getHits() == null ? 0 : moment.getHits()) + delta);
+                    return copy;
+                });
+    }
+
+    /**
+     * 按 id 查询文章
+     * @param id id
+     * @return Optional
+     */
+    public Optional<Article> findArticle(int id) {
+        return articleStore.findById(id, () -> articleMapper.findById(id), isCacheable());
+    }
+
+    /**
+     * 按别名查询文章
+     * @param alias alias
+     * @return Optional
+     */
+    public Optional<Article> findArticleByAlias(String alias) {
+        return articleStore.findByAlias(alias, () -> articleMapper.findByAlias(alias), isCacheable());
+    }
+
+    /**
+     * 按 id 查询动态
+     * @param id id
+     * @return Optional
+     */
+    public Optional<Moment> findMoment(int id) {
+        return momentStore.findById(id, () -> momentMapper.findById(id), isCacheable());
+    }
+
+    @TransactionalEventListener(value = {ArticlePostEvent.class, ArticleUpdateEvent.class, ArticleDeleteEvent.class},
+            fallbackExecution = true)
+    public void onArticleChange(Object event) {
+        if(event instanceof ArticlePostEvent) {
+            articleStore.evict(((ArticlePostEvent) event).getArticle());
+        } else if(event instanceof ArticleUpdateEvent) {
+            articleStore.evict(((ArticleUpdateEvent) event).getArticle());
+        } else if(event instanceof ArticleDeleteEvent) {
+            articleStore.evict(((ArticleDeleteEvent) event).getArticle());
+        }
+    }
+
+    @TransactionalEventListener(value = ArticleBatchDeleteEvent.class, fallbackExecution = true)
+    public void onArticleBatchDelete(ArticleBatchDeleteEvent event) {
+        event.getArticles().forEach(articleStore::evict);
+    }
+
+    @TransactionalEventListener(value = {MomentPostEvent.class, MomentUpdateEvent.class, MomentDeleteEvent.class},
+            fallbackExecution = true)
+    public void onMomentChange(Object event) {
+        if(event instanceof MomentPostEvent) {
+            momentStore.evict(((MomentPostEvent) event).getMoment());
+        } else if(event instanceof MomentUpdateEvent) {
+            momentStore.evict(((MomentUpdateEvent) event).getMoment());
+        } else if(event instanceof MomentDeleteEvent) {
+            momentStore.evict(((MomentDeleteEvent) event).getMoment());
+        }
+    }
+
+    /**
+     * 评论发布或者审核通过后文章、动态的评论数发生变化
+     * @param event event
+     */
+    @TransactionalEventListener(value = {CommentPostEvent.class, CheckCommentEvent.class}, fallbackExecution = true)
+    public void onCommentChange(Object event) {
+        Comment comment = null;
+        if(event instanceof CommentPostEvent) {
+            comment = ((CommentPostEvent) event).getComment();
+        } else if(event instanceof CheckCommentEvent) {
+            comment = ((CheckCommentEvent) event).getComment();
+        }
+        if(comment == null || comment.getModule() == null || comment.getModule().getId() == null) {
+            return;
+        }
+        final CommentModule module = comment.getModule();
+        if(HitsCounter.ARTICLE.equals(module.getName())) {
+            articleStore.evict(module.getId());
+        } else if(HitsCounter.MOMENT.equals(module.getName())) {
+            momentStore.evict(module.getId());
+        }
+    }
+
+    @EventListener(HitsFlushEvent.class)
+    public void onHitsFlush(HitsFlushEvent event) {
+        if(HitsCounter.ARTICLE.equals(event.getModule())) {
+            articleStore.addHits(event.getDeltaMap());
+        } else if(HitsCounter.MOMENT.equals(event.getModule())) {
+            momentStore.addHits(event.getDeltaMap());
+        }
+    }
+
+    /**
+     * 读写事务中可能需要读到本事务中尚未提交的修改，不使用缓存
+     */
+    private boolean isCacheable() {
+        return entityCacheProperties.isEnabled()
+                && !(TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+
+    /**
+     * 单个实体类型的缓存
+     * @param <T> T
+     */
+    private static final class Store<T> {
+
+        private final Function<T, Integer> idGetter;
+
+        private final Function<T, String> aliasGetter;
+
+        private final Predicate<T> cacheable;
+
+        private final BiFunction<T, Integer, T> hitsAdder;
+
+        private final LoadingCache<Integer, Entry<T>> cache;
+
+        /**
+         * 别名 -> id
+         */
+        private final Cache<String, Integer> aliasCache;
+
+        /**
+         * 每次移除缓存时递增，查询期间发生过移除的实体不放入缓存
+         */
+        private final AtomicLong generation = new AtomicLong();
+
+        private Store(EntityCacheProperties entityCacheProperties, Function<Integer, Optional<T>> loader,
+                      Function<T, Integer> idGetter, Function<T, String> aliasGetter, Predicate<T> cacheable,
+                      BiFunction<T, Integer, T> hitsAdder) {
+            this.idGetter = idGetter;
+            this.aliasGetter = aliasGetter;
+            this.cacheable = cacheable;
+            this.hitsAdder = hitsAdder;
+            // 刷新时不再满足缓存条件（例如文章改为草稿）返回 null，缓存随之移除；
+            // 刷新后的点击量已经包含写入的部分，重新从 0 累加
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(entityCacheProperties.getMaxSize())
+                    .expireAfterWrite(entityCacheProperties.getExpireAfterWrite())
+                    .refreshAfterWrite(entityCacheProperties.getRefreshAfterWrite())
+                    .build(id -> loader.apply(id).filter(cacheable).map(Entry::new).orElse(null));
+            this.aliasCache = Caffeine.newBuilder()
+                    .maximumSize(entityCacheProperties.getMaxSize())
+                    .expireAfterWrite(entityCacheProperties.getExpireAfterWrite())
+                    .build();
+        }
+
+        private Optional<T> findById(int id, Supplier<Optional<T>> loader, boolean useCache) {
+            if(!useCache) {
+                return loader.get();
+            }
+            final Entry<T> cached = cache.getIfPresent(id);
+            if(cached != null) {
+                return Optional.of(read(cached));
+            }
+            final long current = generation.get();
+            final Optional<T> entityOp = loader.get();
+            entityOp.ifPresent(entity -> put(entity, current));
+            return entityOp;
+        }
+
+        private Optional<T> findByAlias(String alias, Supplier<Optional<T>> loader, boolean useCache) {
+            if(!useCache) {
+                return loader.get();
+            }
+            final Integer id = aliasCache.getIfPresent(alias);
+            if(id != null) {
+                final Entry<T> cached = cache.getIfPresent(id);
+                if(cached != null && alias.equals(aliasGetter.apply(cached.entity))) {
+                    return Optional.of(read(cached));
+                }
+            }
+            final long current = generation.get();
+            final Optional<T> entityOp = loader.get();
+            entityOp.ifPresent(entity -> put(entity, current));
+            return entityOp;
+        }
+
+        /**
+         * 没有已写入的点击量时直接返回缓存的实例，否则返回合并了点击量的副本
+         */
+        private T read(Entry<T> entry) {
+            final int flushedHits = entry.flushedHits.get();
+            return flushedHits == 0 ? entry.entity : hitsAdder.apply(entry.entity, flushedHits);
+        }
+
+        /**
+         * 查询开始之后发生过移除时不放入缓存；检查和放入之间发生的移除，放入之后再次检查并移除
+         */
+        private void put(T entity, long startGeneration) {
+            if(!cacheable.test(entity) || startGeneration != generation.get()) {
+                return;
+            }
+            final Integer id = idGetter.apply(entity);
+            cache.put(id, new Entry<>(entity));
+            final String alias = aliasGetter.apply(entity);
+            if(alias != null) {
+                aliasCache.put(alias, id);
+            }
+            if(startGeneration != generation.get()) {
+                evict(id);
+            }
+        }
+
+        private void evict(T entity) {
+            if(entity == null) {
+                return;
+            }
+            evict(idGetter.apply(entity));
+        }
+
+        private void evict(Integer id) {
+            if(id == null) {
+                return;
+            }
+            generation.incrementAndGet();
+            cache.invalidate(id);
+            // 别名可能已经修改，移除所有指向该 id 的别名
+            aliasCache.asMap().values().removeIf(id::equals);
+        }
+
+        /**
+         * 只累加在缓存项上，不替换缓存项，不影响缓存的写入时间
+         */
+        private void addHits(Map<Integer, Integer> deltaMap) {
+            final Map<Integer, Entry<T>> map = cache.asMap();
+            deltaMap.forEach((id, delta) -> {
+                final Entry<T> entry = map.get(id);
+                if(entry != null) {
+                    entry.flushedHits.addAndGet(delta);
+                }
+            });
+        }
+    }
+
+    private static final class Entry<T> {
+
+        private final T entity;
+
+        /**
+         * 缓存之后已经写入数据库的点击量
+         */
+        private final AtomicInteger flushedHits = new AtomicInteger();
+
+        private Entry(T entity) {
+            this.entity = entity;
+        }
+    }
+}
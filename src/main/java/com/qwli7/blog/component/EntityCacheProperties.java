@@ -0,0 +1,68 @@
+package com.qwli7.blog.component;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * 文章、动态缓存配置
+ * @author liqiwen
+ * @since 2.5
+ */
+@Configuration
+@ConfigurationProperties(prefix = "blog.entity-cache")
+public class EntityCacheProperties {
+
+    /**
+     * 是否缓存文章、动态
+     */
+    private boolean enabled = true;
+
+    /**
+     * 文章、动态各自最多缓存的条数
+     */
+    private long maxSize = 1000;
+
+    /**
+     * 写入之后多久过期
+     */
+    private Duration expireAfterWrite = Duration.ofMinutes(30);
+
+    /**
+     * 写入之后多久在访问时异步刷新，刷新期间仍然返回旧的数据，只有经常访问的数据会被刷新
+     */
+    private Duration refreshAfterWrite = Duration.ofMinutes(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+
+    public Duration getRefreshAfterWrite() {
+        return refreshAfterWrite;
+    }
+
+    public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+    }
+}
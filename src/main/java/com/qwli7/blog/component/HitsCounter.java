@@ -0,0 +1,202 @@
+package com.qwli7.blog.component;
+
+import com.qwli7.blog.event.HitsFlushEvent;
+import com.qwli7.blog.mapper.ArticleMapper;
+import com.qwli7.blog.mapper.MomentMapper;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 点击量计数器
+ * 点击量先累加在内存中，定时批量写入数据库，应用关闭时也会写入一次
+ * 避免每次访问都需要查询 + 更新 + 行锁，并发访问时也不会丢失点击量
+ * 内存中累积的 id 过多时交给调度线程写入，不在请求线程中写入数据库
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class HitsCounter implements DisposableBean {
+
+    /**
+     * 文章模块
+     */
+    public static final String ARTICLE = "article";
+
+    /**
+     * 动态模块
+     */
+    public static final String MOMENT = "moment";
+
+    /**
+     * 单个模块内存中最多累积的 id 数量，超过后立即交给调度线程写入数据库
+     */
+    private static final int MAX_PENDING_SIZE = 10000;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final SqlSessionFactory sqlSessionFactory;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final TaskScheduler taskScheduler;
+
+    /**
+     * 模块 -> (id -> 待写入的点击量)
+     */
+    private final Map<String, ConcurrentHashMap<Integer, LongAdder>> pendingMap = new HashMap<>();
+
+    /**
+     * 模块 -> 写入方式
+     */
+    private final Map<String, HitsWriter> writerMap = new HashMap<>();
+
+    /**
+     * 已经提交给调度线程、尚未开始写入的模块，避免重复提交
+     */
+    private final Set<String> flushRequested = ConcurrentHashMap.newKeySet();
+
+    public HitsCounter(SqlSessionFactory sqlSessionFactory, ApplicationEventPublisher publisher,
+                       TaskScheduler taskScheduler) {
+        this.sqlSessionFactory = sqlSessionFactory;
+        this.publisher = publisher;
+        this.taskScheduler = taskScheduler;
+        register(ARTICLE, (session, id, hits) -> session.getMapper(ArticleMapper.class).addHits(id, hits));
+        register(MOMENT, (session, id, hits) -> session.getMapper(MomentMapper.class).addHits(id, hits));
+    }
+
+    private void register(String module, HitsWriter writer) {
+        pendingMap.put(module, new ConcurrentHashMap<>());
+        writerMap.put(module, writer);
+    }
+
+    /**
+     * 增加一次点击
+     * @param module module
+     * @param id id
+     */
+    public void increase(String module, int id) {
+        final ConcurrentHashMap<Integer, LongAdder> pending = getPending(module);
+        // 在 compute 中累加，与 flush 时移除没有点击的 id 互斥，不会累加到已经移除的计数器上
+        pending.compute(id, (k, adder) -> {
+            final LongAdder current = adder == null ? new LongAdder() : adder;
+            current.increment();
+            return current;
+        });
+        if(pending.size() > MAX_PENDING_SIZE && flushRequested.add(module)) {
+            taskScheduler.schedule(() -> {
+                flushRequested.remove(module);
+                flush(module);
+            }, new Date());
+        }
+    }
+
+    /**
+     * 获取内存中尚未写入数据库的点击量
+     * @param module module
+     * @param id id
+     * @return int
+     */
+    public int getPendingHits(String module, int id) {
+        final LongAdder adder = getPending(module).get(id);
+        return adder == null ? 0 : (int) adder.sum();
+    }
+
+    /**
+     * 合并内存中尚未写入的点击量
+     * @param module module
+     * @param id id
+     * @param hits 数据库中的点击量
+     * @return int
+     */
+    public int mergeHits(String module, int id, Integer hits) {
+        return (hits == null ? 0 : hits) + getPendingHits(module, id);
+    }
+
+    /**
+     * 定时写入数据库
+     */
+    @Scheduled(fixedDelayString = "${blog.core.hits-flush-interval:30000}")
+    public void flushAll() {
+        for(String module: pendingMap.keySet()) {
+            flush(module);
+        }
+    }
+
+    /**
+     * 将某个模块的点击量批量写入数据库
+     * @param module module
+     */
+    private synchronized void flush(String module) {
+        final ConcurrentHashMap<Integer, LongAdder> pending = getPending(module);
+        if(pending.isEmpty()) {
+            return;
+        }
+        Map<Integer, Integer> deltaMap = new HashMap<>();
+        for(Integer id: pending.keySet()) {
+            final long[] delta = new long[1];
+            // 读取并清零与 increase 中的累加互斥，一个周期内没有点击的 id 同时移除掉，期间新增的点击不会丢失
+            pending.computeIfPresent(id, (k, adder) -> {
+                delta[0] = adder.sumThenReset();
+                return delta[0] == 0 ? null : adder;
+            });
+            if(delta[0] != 0) {
+                deltaMap.put(id, (int) delta[0]);
+            }
+        }
+        if(deltaMap.isEmpty()) {
+            return;
+        }
+        final HitsWriter writer = writerMap.get(module);
+        try (SqlSession session = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            for(Map.Entry<Integer, Integer> entry: deltaMap.entrySet()) {
+                writer.write(session, entry.getKey(), entry.getValue());
+            }
+            session.flushStatements();
+            session.commit();
+        } catch (RuntimeException ex) {
+            logger.error("method<flush> 写入[{}]点击量失败: [{}]", module, ex.getMessage(), ex);
+            // 写入失败，将点击量放回内存中，下次再写入
+            deltaMap.forEach((id, delta) -> pending.computeIfAbsent(id, k -> new LongAdder()).add(delta));
+            return;
+        }
+        // 缓存中的点击量需要加上已经写入的部分
+        publisher.publishEvent(new HitsFlushEvent(this, module, deltaMap));
+    }
+
+    private ConcurrentHashMap<Integer, LongAdder> getPending(String module) {
+        final ConcurrentHashMap<Integer, LongAdder> pending = pendingMap.get(module);
+        if(pending == null) {
+            throw new IllegalArgumentException("unknown hits module: " + module);
+        }
+        return pending;
+    }
+
+    @Override
+    public void destroy() {
+        flushAll();
+    }
+
+    /**
+     * 点击量写入
+     */
+    @FunctionalInterface
+    private interface HitsWriter {
+
+        void write(SqlSession session, int id, int hits);
+    }
+}
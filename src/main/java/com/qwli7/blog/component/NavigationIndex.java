@@ -0,0 +1,241 @@
+package com.qwli7.blog.component;
+
+import com.qwli7.blog.entity.Article;
+import com.qwli7.blog.entity.ArticleNav;
+import com.qwli7.blog.entity.ArticleStatus;
+import com.qwli7.blog.entity.Moment;
+import com.qwli7.blog.entity.MomentNav;
+import com.qwli7.blog.event.ArticleBatchDeleteEvent;
+import com.qwli7.blog.event.ArticleDeleteEvent;
+import com.qwli7.blog.event.ArticlePostEvent;
+import com.qwli7.blog.event.ArticleUpdateEvent;
+import com.qwli7.blog.event.MomentDeleteEvent;
+import com.qwli7.blog.event.MomentPostEvent;
+import com.qwli7.blog.event.MomentUpdateEvent;
+import com.qwli7.blog.mapper.ArticleMapper;
+import com.qwli7.blog.mapper.MomentMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 上一篇/下一篇导航索引
+ * 启动时加载已发布文章和公开动态的 id，按发布时间排序保存在内存中，之后由发布、更新、删除事件维护，
+ * 查询导航时只需要在有序索引上查找前后元素，不再执行 sql
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class NavigationIndex implements InitializingBean {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final ArticleMapper articleMapper;
+
+    private final MomentMapper momentMapper;
+
+    /**
+     * 已发布的文章，按 post_at 排序
+     */
+    private final OrderedIndex articleIndex = new OrderedIndex();
+
+    /**
+     * 公开的动态，按 create_at 排序
+     */
+    private final OrderedIndex momentIndex = new OrderedIndex();
+
+    public NavigationIndex(ArticleMapper articleMapper, MomentMapper momentMapper) {
+        this.articleMapper = articleMapper;
+        this.momentMapper = momentMapper;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        articleMapper.findNavArticles(ArticleStatus.POST).forEach(this::putArticle);
+        momentMapper.findNavMoments().forEach(this::putMoment);
+        logger.info("method<afterPropertiesSet> 导航索引加载完成，文章[{}]篇，动态[{}]条", articleIndex.size(), momentIndex.size());
+    }
+
+    /**
+     * 获取文章导航
+     * 文章未发布时没有导航
+     * @param id id
+     * @return ArticleNav
+     */
+    public ArticleNav findArticleNav(int id) {
+        ArticleNav articleNav = new ArticleNav();
+        final NavEntry prev = articleIndex.lower(id);
+        if(prev != null) {
+            articleNav.setPrevArticle(prev.toArticle());
+        }
+        final NavEntry next = articleIndex.higher(id);
+        if(next != null) {
+            articleNav.setNextArticle(next.toArticle());
+        }
+        return articleNav;
+    }
+
+    /**
+     * 获取动态导航
+     * 私人动态没有导航
+     * @param id id
+     * @return MomentNav
+     */
+    public MomentNav findMomentNav(int id) {
+        MomentNav momentNav = new MomentNav();
+        final NavEntry prev = momentIndex.lower(id);
+        if(prev != null) {
+            momentNav.setPrevMoment(prev.toMoment());
+        }
+        final NavEntry next = momentIndex.higher(id);
+        if(next != null) {
+            momentNav.setNextMoment(next.toMoment());
+        }
+        return momentNav;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticlePost(ArticlePostEvent articlePostEvent) {
+        putArticle(articlePostEvent.getArticle());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleUpdate(ArticleUpdateEvent articleUpdateEvent) {
+        putArticle(articleUpdateEvent.getArticle());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleDelete(ArticleDeleteEvent articleDeleteEvent) {
+        articleIndex.remove(articleDeleteEvent.getArticle().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onArticleBatchDelete(ArticleBatchDeleteEvent articleBatchDeleteEvent) {
+        articleBatchDeleteEvent.getArticles().forEach(e -> articleIndex.remove(e.getId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMomentPost(MomentPostEvent momentPostEvent) {
+        putMoment(momentPostEvent.getMoment());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMomentUpdate(MomentUpdateEvent momentUpdateEvent) {
+        putMoment(momentUpdateEvent.getMoment());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMomentDelete(MomentDeleteEvent momentDeleteEvent) {
+        momentIndex.remove(momentDeleteEvent.getMoment().getId());
+    }
+
+    /**
+     * 已发布的文章放入索引，其他状态从索引中移除
+     * @param article article
+     */
+    private void putArticle(Article article) {
+        if(ArticleStatus.POST != article.getStatus()) {
+            articleIndex.remove(article.getId());
+            return;
+        }
+        final LocalDateTime postAt = article.getPostAt() == null ? article.getCreateAt() : article.getPostAt();
+        articleIndex.put(new NavEntry(article.getId(), postAt, article.getTitle(), article.getAlias()));
+    }
+
+    /**
+     * 公开的动态放入索引，私人动态从索引中移除
+     * @param moment moment
+     */
+    private void putMoment(Moment moment) {
+        if(Boolean.TRUE.equals(moment.getPrivate())) {
+            momentIndex.remove(moment.getId());
+            return;
+        }
+        momentIndex.put(new NavEntry(moment.getId(), moment.getCreateAt(), null, null));
+    }
+
+    /**
+     * 导航条目
+     */
+    private static final class NavEntry {
+
+        private static final Comparator<NavEntry> ORDER = Comparator
+                .comparing((NavEntry e) -> e.time, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparingInt(e -> e.id);
+
+        private final int id;
+        private final LocalDateTime time;
+        private final String title;
+        private final String alias;
+
+        private NavEntry(int id, LocalDateTime time, String title, String alias) {
+            this.id = id;
+            this.time = time;
+            this.title = title;
+            this.alias = alias;
+        }
+
+        private Article toArticle() {
+            Article article = new Article();
+            article.setId(id);
+            article.setTitle(title);
+            article.setAlias(alias);
+            return article;
+        }
+
+        private Moment toMoment() {
+            Moment moment = new Moment();
+            moment.setId(id);
+            moment.setCreateAt(time);
+            return moment;
+        }
+    }
+
+    /**
+     * 按时间排序的索引
+     * 有序集合用于查找前后元素，id 映射用于定位当前元素，两者在写入时同步修改
+     */
+    private static final class OrderedIndex {
+
+        private final ConcurrentSkipListMap<NavEntry, NavEntry> entries = new ConcurrentSkipListMap<>(NavEntry.ORDER);
+
+        private final Map<Integer, NavEntry> idMap = new ConcurrentHashMap<>();
+
+        private synchronized void put(NavEntry entry) {
+            final NavEntry old = idMap.put(entry.id, entry);
+            if(old != null) {
+                entries.remove(old);
+            }
+            entries.put(entry, entry);
+        }
+
+        private synchronized void remove(int id) {
+            final NavEntry old = idMap.remove(id);
+            if(old != null) {
+                entries.remove(old);
+            }
+        }
+
+        private NavEntry lower(int id) {
+            final NavEntry current = idMap.get(id);
+            return current == null ? null : entries.lowerKey(current);
+        }
+
+        private NavEntry higher(int id) {
+            final NavEntry current = idMap.get(id);
+            return current == null ? null : entries.higherKey(current);
+        }
+
+        private int size() {
+            return idMap.size();
+        }
+    }
+}
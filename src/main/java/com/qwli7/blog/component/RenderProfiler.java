@@ -0,0 +1,139 @@
+package com.qwli7.blog.component;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 页面渲染统计
+ * 按模板统计解析耗时、渲染耗时、输出大小，按 data provider 统计查询耗时，
+ * 以及 markdown 解析耗时和各级缓存的命中率，只保留最近几分钟的数据
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class RenderProfiler {
+
+    public static final String PAGE_CACHE = "page";
+
+    public static final String DATA_CACHE = "data";
+
+    public static final String FRAGMENT_CACHE = "fragment";
+
+    private static final int SLICE_COUNT = 5;
+
+    private static final long SLICE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * 命中记为 1，未命中记为 0，平均值即为命中率
+     */
+    private static final long[] HIT_BOUNDS = {0};
+
+    private static final String MARKDOWN = "markdown";
+
+    private final Map<String, RollingHistogram> parseMap = new ConcurrentHashMap<>();
+
+    private final Map<String, RollingHistogram> renderMap = new ConcurrentHashMap<>();
+
+    private final Map<String, RollingHistogram> outputMap = new ConcurrentHashMap<>();
+
+    private final Map<String, RollingHistogram> providerMap = new ConcurrentHashMap<>();
+
+    private final Map<String, RollingHistogram> markdownMap = new ConcurrentHashMap<>();
+
+    private final Map<String, RollingHistogram> cacheMap = new ConcurrentHashMap<>();
+
+    /**
+     * 模板解析耗时
+     * @param templateName templateName
+     * @param nanos 纳秒
+     */
+    public void recordParse(String templateName, long nanos) {
+        histogram(parseMap, templateName, RollingHistogram.LATENCY_BOUNDS).record(toMicros(nanos));
+    }
+
+    /**
+     * 模板渲染耗时，包括等待 data 标签数据的时间
+     * @param templateName templateName
+     * @param nanos 纳秒
+     */
+    public void recordRender(String templateName, long nanos) {
+        histogram(renderMap, templateName, RollingHistogram.LATENCY_BOUNDS).record(toMicros(nanos));
+    }
+
+    /**
+     * 页面输出大小
+     * @param templateName templateName
+     * @param bytes 字节数
+     */
+    public void recordOutput(String templateName, long bytes) {
+        histogram(outputMap, templateName, RollingHistogram.SIZE_BOUNDS).record(bytes);
+    }
+
+    /**
+     * data provider 查询耗时
+     * @param dataProviderName dataProviderName
+     * @param nanos 纳秒
+     */
+    public void recordProvider(String dataProviderName, long nanos) {
+        histogram(providerMap, dataProviderName, RollingHistogram.LATENCY_BOUNDS).record(toMicros(nanos));
+    }
+
+    /**
+     * markdown 解析耗时
+     * @param nanos 纳秒
+     */
+    public void recordMarkdown(long nanos) {
+        histogram(markdownMap, MARKDOWN, RollingHistogram.LATENCY_BOUNDS).record(toMicros(nanos));
+    }
+
+    /**
+     * 缓存是否命中
+     * @param cache 缓存名称
+     * @param name 模板或者 provider 名称
+     * @param hit 是否命中
+     */
+    public void recordCache(String cache, String name, boolean hit) {
+        histogram(cacheMap, cache + ":" + name, HIT_BOUNDS).record(hit ? 1 : 0);
+    }
+
+    /**
+     * 当前的统计数据，耗时单位为微秒，大小单位为字节
+     * @return Map
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        snapshot.put("templateParse", snapshot(parseMap));
+        snapshot.put("templateRender", snapshot(renderMap));
+        snapshot.put("templateOutput", snapshot(outputMap));
+        snapshot.put("dataProvider", snapshot(providerMap));
+        snapshot.put("markdown", snapshot(markdownMap));
+        Map<String, Object> caches = new TreeMap<>();
+        cacheMap.forEach((name, histogram) -> {
+            final Map<String, Object> histogramSnapshot = histogram.snapshot();
+            Map<String, Object> cache = new TreeMap<>();
+            cache.put("requests", histogramSnapshot.get("count"));
+            cache.put("hitRate", histogramSnapshot.get("mean"));
+            caches.put(name, cache);
+        });
+        snapshot.put("cache", caches);
+        return snapshot;
+    }
+
+    private Map<String, Object> snapshot(Map<String, RollingHistogram> histogramMap) {
+        Map<String, Object> snapshot = new TreeMap<>();
+        histogramMap.forEach((name, histogram) -> snapshot.put(name, histogram.snapshot()));
+        return snapshot;
+    }
+
+    private RollingHistogram histogram(Map<String, RollingHistogram> histogramMap, String name, long[] bounds) {
+        return histogramMap.computeIfAbsent(name, k -> new RollingHistogram(bounds, SLICE_COUNT, SLICE_MILLIS));
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
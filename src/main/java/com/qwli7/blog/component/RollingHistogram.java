@@ -0,0 +1,135 @@
+package com.qwli7.blog.component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 滚动直方图
+ * 按时间分成若干片，只统计最近几片内的数据，旧数据随时间自动淘汰；
+ * 数值落入固定的区间，百分位数取区间的上界，足够用来判断慢在哪里
+ * @author liqiwen
+ * @since 2.5
+ */
+public class RollingHistogram {
+
+    /**
+     * 耗时区间的上界（微秒）
+     */
+    public static final long[] LATENCY_BOUNDS = {100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000};
+
+    /**
+     * 大小区间的上界（字节）
+     */
+    public static final long[] SIZE_BOUNDS = {1 << 10, 4 << 10, 16 << 10, 32 << 10, 64 << 10, 128 << 10,
+            256 << 10, 512 << 10, 1 << 20, 4 << 20};
+
+    private final long[] bounds;
+
+    private final long sliceMillis;
+
+    private final Slice[] slices;
+
+    public RollingHistogram(long[] bounds, int sliceCount, long sliceMillis) {
+        this.bounds = bounds;
+        this.sliceMillis = sliceMillis;
+        this.slices = new Slice[sliceCount];
+        for(int i = 0; i < sliceCount; i++) {
+            slices[i] = new Slice(bounds.length + 1);
+        }
+    }
+
+    /**
+     * 记录一个值
+     * @param value value
+     */
+    public void record(long value) {
+        final long epoch = System.currentTimeMillis() / sliceMillis;
+        final Slice slice = slices[(int) (epoch % slices.length)];
+        if(slice.epoch != epoch) {
+            slice.rotate(epoch);
+        }
+        int bin = 0;
+        while (bin < bounds.length && value > bounds[bin]) {
+            bin++;
+        }
+        slice.counts.incrementAndGet(bin);
+        // [count, sum, max]
+        slice.stats.incrementAndGet(0);
+        slice.stats.addAndGet(1, value);
+        slice.stats.accumulateAndGet(2, value, Math::max);
+    }
+
+    /**
+     * 当前窗口内的统计
+     * @return Map count、mean、p50、p95、p99、max
+     */
+    public Map<String, Object> snapshot() {
+        final long epoch = System.currentTimeMillis() / sliceMillis;
+        final long[] counts = new long[bounds.length + 1];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for(Slice slice: slices) {
+            if(slice.epoch <= epoch - slices.length) {
+                continue;
+            }
+            for(int i = 0; i < counts.length; i++) {
+                counts[i] += slice.counts.get(i);
+            }
+            count += slice.stats.get(0);
+            sum += slice.stats.get(1);
+            max = Math.max(max, slice.stats.get(2));
+        }
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", count);
+        snapshot.put("mean", count == 0 ? 0 : (double) sum / count);
+        snapshot.put("p50", percentile(counts, count, 0.5, max));
+        snapshot.put("p95", percentile(counts, count, 0.95, max));
+        snapshot.put("p99", percentile(counts, count, 0.99, max));
+        snapshot.put("max", max);
+        return snapshot;
+    }
+
+    private long percentile(long[] counts, long count, double percentile, long max) {
+        if(count == 0) {
+            return 0;
+        }
+        final long rank = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if(seen >= rank) {
+                return i < bounds.length ? Math.min(bounds[i], max) : max;
+            }
+        }
+        return max;
+    }
+
+    private static final class Slice {
+
+        private volatile long epoch = -1;
+
+        private final AtomicLongArray counts;
+
+        private final AtomicLongArray stats = new AtomicLongArray(3);
+
+        private Slice(int bins) {
+            this.counts = new AtomicLongArray(bins);
+        }
+
+        private synchronized void rotate(long newEpoch) {
+            if(epoch == newEpoch) {
+                return;
+            }
+            for(int i = 0; i < counts.length(); i++) {
+                counts.set(i, 0);
+            }
+            for(int i = 0; i < stats.length(); i++) {
+                stats.set(i, 0);
+            }
+            epoch = newEpoch;
+        }
+    }
+}
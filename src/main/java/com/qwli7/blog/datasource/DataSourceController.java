@@ -0,0 +1,36 @@
+package com.qwli7.blog.datasource;
+
+import com.qwli7.blog.security.Authenticated;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 数据源统计
+ * @author liqiwen
+ * @since 2.5
+ */
+@Authenticated
+@RestController
+@RequestMapping("api")
+@ConditionalOnProperty(prefix = "blog.datasource.replica", name = "url")
+public class DataSourceController {
+
+    private final ReadWriteRoutingDataSource readWriteRoutingDataSource;
+
+    public DataSourceController(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        this.readWriteRoutingDataSource = readWriteRoutingDataSource;
+    }
+
+    /**
+     * 获取各个数据源的路由次数以及连接池状态
+     * @return Map
+     */
+    @GetMapping("datasource/metrics")
+    public Map<String, Object> metrics() {
+        return readWriteRoutingDataSource.getMetrics();
+    }
+}
@@ -0,0 +1,19 @@
+package com.qwli7.blog.datasource;
+
+/**
+ * 数据源类型
+ * @author liqiwen
+ * @since 2.5
+ */
+public enum DataSourceType {
+
+    /**
+     * 主库，负责写以及非只读事务
+     */
+    PRIMARY,
+
+    /**
+     * 从库，负责只读事务
+     */
+    REPLICA
+}
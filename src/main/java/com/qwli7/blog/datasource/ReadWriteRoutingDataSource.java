@@ -0,0 +1,113 @@
+package com.qwli7.blog.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 读写分离数据源
+ * 只读事务路由到从库，其他情况路由到主库；从库不可用或者延迟过大时回退到主库
+ * 需要配合 LazyConnectionDataSourceProxy 使用，保证获取连接时事务的只读属性已经设置
+ * @author liqiwen
+ * @since 2.5
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final DataSource primary;
+
+    private final DataSource replica;
+
+    /**
+     * 从库是否可用
+     */
+    private volatile boolean replicaAvailable = true;
+
+    /**
+     * 各个数据源获取连接的次数
+     */
+    private final Map<DataSourceType, LongAdder> routeCounters = new EnumMap<>(DataSourceType.class);
+
+    /**
+     * 只读事务回退到主库的次数
+     */
+    private final LongAdder fallbackCounter = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(DataSourceType.PRIMARY, primary);
+        targetDataSources.put(DataSourceType.REPLICA, replica);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+        for(DataSourceType type: DataSourceType.values()) {
+            routeCounters.put(type, new LongAdder());
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        DataSourceType type = DataSourceType.PRIMARY;
+        if(TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if(replicaAvailable) {
+                type = DataSourceType.REPLICA;
+            } else {
+                fallbackCounter.increment();
+            }
+        }
+        routeCounters.get(type).increment();
+        return type;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public void setReplicaAvailable(boolean replicaAvailable) {
+        this.replicaAvailable = replicaAvailable;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    /**
+     * 获取各个数据源的统计信息
+     * @return Map
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("replicaAvailable", replicaAvailable);
+        metrics.put("fallbacks", fallbackCounter.sum());
+        metrics.put(DataSourceType.PRIMARY.name().toLowerCase(), getPoolMetrics(DataSourceType.PRIMARY, primary));
+        metrics.put(DataSourceType.REPLICA.name().toLowerCase(), getPoolMetrics(DataSourceType.REPLICA, replica));
+        return metrics;
+    }
+
+    private Map<String, Object> getPoolMetrics(DataSourceType type, DataSource dataSource) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("routes", routeCounters.get(type).sum());
+        if(dataSource instanceof HikariDataSource) {
+            final HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            if(pool != null) {
+                metrics.put("activeConnections", pool.getActiveConnections());
+                metrics.put("idleConnections", pool.getIdleConnections());
+                metrics.put("totalConnections", pool.getTotalConnections());
+                metrics.put("threadsAwaitingConnection", pool.getThreadsAwaitingConnection());
+            }
+        }
+        return metrics;
+    }
+}
@@ -0,0 +1,93 @@
+package com.qwli7.blog.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 从库配置
+ * 配置了 blog.datasource.replica.url 之后才会开启读写分离
+ * @author liqiwen
+ * @since 2.5
+ */
+@ConfigurationProperties(prefix = "blog.datasource.replica")
+public class ReplicaDataSourceProperties {
+
+    private String url;
+
+    private String username;
+
+    private String password;
+
+    private String driverClassName;
+
+    /**
+     * 连接池大小
+     */
+    private int maximumPoolSize = 10;
+
+    /**
+     * 查询从库延迟的 sql，默认为 MySQL 的 SHOW SLAVE STATUS，读取 Seconds_Behind_Master 列，
+     * 其他数据库需要配置返回延迟秒数的查询，不能为空
+     */
+    private String lagQuery = "SHOW SLAVE STATUS";
+
+    /**
+     * 允许的最大延迟，单位秒，超过后只读查询回退到主库
+     */
+    private long maxLagSeconds = 10;
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getDriverClassName() {
+        return driverClassName;
+    }
+
+    public void setDriverClassName(String driverClassName) {
+        this.driverClassName = driverClassName;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public String getLagQuery() {
+        return lagQuery;
+    }
+
+    public void setLagQuery(String lagQuery) {
+        this.lagQuery = lagQuery;
+    }
+
+    public long getMaxLagSeconds() {
+        return maxLagSeconds;
+    }
+
+    public void setMaxLagSeconds(long maxLagSeconds) {
+        this.maxLagSeconds = maxLagSeconds;
+    }
+}
@@ -0,0 +1,97 @@
+package com.qwli7.blog.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.Assert;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 从库延迟检测
+ * 定时检测从库的连接以及复制延迟，检测失败或者延迟超过阈值时，只读事务回退到主库
+ * @author liqiwen
+ * @since 2.5
+ */
+public class ReplicaLagMonitor {
+
+    /**
+     * MySQL SHOW SLAVE STATUS 中的延迟列
+     */
+    private static final String SECONDS_BEHIND_MASTER = "Seconds_Behind_Master";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final ReadWriteRoutingDataSource routingDataSource;
+
+    /**
+     * 查询延迟的 sql
+     */
+    private final String lagQuery;
+
+    /**
+     * 允许的最大延迟，单位秒
+     */
+    private final long maxLagSeconds;
+
+    public ReplicaLagMonitor(ReadWriteRoutingDataSource routingDataSource, String lagQuery, long maxLagSeconds) {
+        // 只检测连接无法发现复制延迟，从库落后时只读查询会读到旧数据，不允许不配置延迟查询
+        Assert.hasText(lagQuery, "blog.datasource.replica.lag-query must not be empty");
+        this.routingDataSource = routingDataSource;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    /**
+     * 检测从库
+     */
+    @Scheduled(fixedDelayString = "${blog.datasource.replica.check-interval:5000}")
+    public void check() {
+        boolean available;
+        try (Connection connection = routingDataSource.getReplica().getConnection()) {
+            final Long lag = queryLag(connection);
+            available = lag != null && lag <= maxLagSeconds;
+            if(!available) {
+                logger.warn("method<check> 从库延迟[{}]秒，超过阈值[{}]秒，只读查询回退到主库", lag, maxLagSeconds);
+            }
+        } catch (SQLException ex) {
+            logger.warn("method<check> 从库不可用，只读查询回退到主库: [{}]", ex.getMessage());
+            available = false;
+        }
+        if(available != routingDataSource.isReplicaAvailable()) {
+            logger.info("method<check> 从库可用状态变更为: [{}]", available);
+        }
+        routingDataSource.setReplicaAvailable(available);
+    }
+
+    /**
+     * 查询复制延迟
+     * 优先读取 Seconds_Behind_Master 列，不存在则读取第一列
+     * 查询结果为空时说明不是复制从库，认为没有延迟
+     * @param connection connection
+     * @return 延迟秒数，复制中断时为 null
+     * @throws SQLException SQLException
+     */
+    private Long queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(lagQuery)) {
+            if(!rs.next()) {
+                return 0L;
+            }
+            int column = 1;
+            final ResultSetMetaData metaData = rs.getMetaData();
+            for(int i = 1; i <= metaData.getColumnCount(); i++) {
+                if(SECONDS_BEHIND_MASTER.equalsIgnoreCase(metaData.getColumnLabel(i))) {
+                    column = i;
+                    break;
+                }
+            }
+            final long lag = rs.getLong(column);
+            return rs.wasNull() ? null : lag;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.qwli7.blog.entity.CommentModule;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 评论 DTO
@@ -53,6 +55,19 @@ public class CommentDto implements Serializable {
 
     private CommentModule commentModule;
 
+    /**
+     * 回复
+     */
+    private List<CommentDto> children = new ArrayList<>();
+
+    public List<CommentDto> getChildren() {
+        return children;
+    }
+
+    public void setChildren(List<CommentDto> children) {
+        this.children = children;
+    }
+
     public CommentModule getCommentModule() {
         return commentModule;
     }
@@ -0,0 +1,26 @@
+package com.qwli7.blog.event;
+
+import com.qwli7.blog.entity.Article;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 文章更新事件
+ * @author liqiwen
+ * @since 2.5
+ */
+public class ArticleUpdateEvent extends ApplicationEvent {
+
+    /**
+     * 更新之后的文章
+     */
+    private final Article article;
+
+    public Article getArticle() {
+        return article;
+    }
+
+    public ArticleUpdateEvent(Object source, Article article) {
+        super(source);
+        this.article = article;
+    }
+}
@@ -1,5 +1,6 @@
 package com.qwli7.blog.event;
 
+import com.qwli7.blog.CacheConfiguration;
 import com.qwli7.blog.entity.*;
 import com.qwli7.blog.mapper.ArticleMapper;
 import com.qwli7.blog.mapper.CommentMapper;
@@ -7,6 +8,8 @@ import com.qwli7.blog.mapper.MomentMapper;
 import com.qwli7.blog.queue.DataContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 import org.thymeleaf.context.Context;
@@ -36,14 +39,37 @@ public class BlogEventHandler {
 
     private final DataContainer<Comment> dataContainer;
 
+    private final CacheManager cacheManager;
+
     private BlogEventHandler(DataContainer<Comment> dataContainer, CommentMapper commentMapper,
                              ArticleMapper articleMapper, MomentMapper momentMapper,
-                             SpringTemplateEngine templateEngine) {
+                             SpringTemplateEngine templateEngine, CacheManager cacheManager) {
         this.commentMapper = commentMapper;
         this.dataContainer = dataContainer;
         this.articleMapper = articleMapper;
         this.momentMapper = momentMapper;
         this.templateEngine = templateEngine;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * 分类删除事件
+     * @param categoryDeleteEvent 分类删除事件
+     */
+    @EventListener(CategoryDeleteEvent.class)
+    public void processCategoryDeleteEvent(CategoryDeleteEvent categoryDeleteEvent) {
+        logger.info("method<processCategoryDeleteEvent> source:[{}]", categoryDeleteEvent.getSource());
+        clearCache(CacheConfiguration.CATEGORY_CACHE);
+    }
+
+    /**
+     * 标签删除事件
+     * @param tagDeleteEvent 标签删除事件
+     */
+    @EventListener(TagDeleteEvent.class)
+    public void processTagDeleteEvent(TagDeleteEvent tagDeleteEvent) {
+        logger.info("method<processTagDeleteEvent> source:[{}]", tagDeleteEvent.getSource());
+        clearCache(CacheConfiguration.TAG_CACHE);
     }
 
     /**
@@ -105,4 +131,15 @@ public class BlogEventHandler {
         final Comment parent = comment.getParent();
         // 如果父评论是 admin，则不通知，反之邮件通知
     }
+
+    /**
+     * 清空缓存
+     * @param cacheName cacheName
+     */
+    private void clearCache(String cacheName) {
+        final Cache cache = cacheManager.getCache(cacheName);
+        if(cache != null) {
+            cache.clear();
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package com.qwli7.blog.event;
+
+import com.qwli7.blog.entity.Category;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 分类变更事件
+ * 分类新增、修改时发布
+ * @author liqiwen
+ * @since 2.5
+ */
+public class CategoryChangeEvent extends ApplicationEvent {
+
+    /**
+     * 变更的分类
+     */
+    private final Category category;
+
+    public Category getCategory() {
+        return category;
+    }
+
+    public CategoryChangeEvent(Object source, Category category) {
+        super(source);
+        this.category = category;
+    }
+}
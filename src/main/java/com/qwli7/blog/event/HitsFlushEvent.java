@@ -0,0 +1,38 @@
+package com.qwli7.blog.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Map;
+
+/**
+ * 点击量写入数据库事件
+ * HitsCounter 将内存中的点击量写入数据库之后发布
+ * @author liqiwen
+ * @since 2.5
+ */
+public class HitsFlushEvent extends ApplicationEvent {
+
+    /**
+     * 模块
+     */
+    private final String module;
+
+    /**
+     * id -> 写入的点击量
+     */
+    private final Map<Integer, Integer> deltaMap;
+
+    public String getModule() {
+        return module;
+    }
+
+    public Map<Integer, Integer> getDeltaMap() {
+        return deltaMap;
+    }
+
+    public HitsFlushEvent(Object source, String module, Map<Integer, Integer> deltaMap) {
+        super(source);
+        this.module = module;
+        this.deltaMap = deltaMap;
+    }
+}
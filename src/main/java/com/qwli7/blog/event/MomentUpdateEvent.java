@@ -0,0 +1,26 @@
+package com.qwli7.blog.event;
+
+import com.qwli7.blog.entity.Moment;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 动态更新事件
+ * @author liqiwen
+ * @since 2.5
+ */
+public class MomentUpdateEvent extends ApplicationEvent {
+
+    /**
+     * 更新之后的动态
+     */
+    private final Moment moment;
+
+    public Moment getMoment() {
+        return moment;
+    }
+
+    public MomentUpdateEvent(Object source, Moment moment) {
+        super(source);
+        this.moment = moment;
+    }
+}
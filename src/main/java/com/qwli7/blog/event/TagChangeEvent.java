@@ -0,0 +1,27 @@
+package com.qwli7.blog.event;
+
+import com.qwli7.blog.entity.Tag;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 标签变更事件
+ * 标签新增、修改时发布
+ * @author liqiwen
+ * @since 2.5
+ */
+public class TagChangeEvent extends ApplicationEvent {
+
+    /**
+     * 变更的标签
+     */
+    private final Tag tag;
+
+    public Tag getTag() {
+        return tag;
+    }
+
+    public TagChangeEvent(Object source, Tag tag) {
+        super(source);
+        this.tag = tag;
+    }
+}
@@ -0,0 +1,27 @@
+package com.qwli7.blog.event;
+
+import com.qwli7.blog.entity.Template;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 模板变更事件
+ * 模板新增、修改、删除时发布
+ * @author liqiwen
+ * @since 2.5
+ */
+public class TemplateChangeEvent extends ApplicationEvent {
+
+    /**
+     * 变更的模板
+     */
+    private final Template template;
+
+    public Template getTemplate() {
+        return template;
+    }
+
+    public TemplateChangeEvent(Object source, Template template) {
+        super(source);
+        this.template = template;
+    }
+}
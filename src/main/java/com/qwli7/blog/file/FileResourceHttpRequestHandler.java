@@ -2,15 +2,32 @@ package com.qwli7.blog.file;
 
 import org.springframework.boot.autoconfigure.web.ResourceProperties;
 import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
 import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
 
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
-import java.io.File;
+import javax.servlet.http.HttpServletResponse;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * @author qwli7 
@@ -19,6 +36,19 @@ import java.util.Collections;
  **/
 class FileResourceHttpRequestHandler extends ResourceHttpRequestHandler {
 
+    /**
+     * Tomcat sendfile 相关的请求属性
+     */
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 小于该大小时直接写出，sendfile 的额外开销不划算
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
     public FileResourceHttpRequestHandler(FileResourceResolver fileResourceResolver, ResourceProperties resourceProperties) {
         super();
         this.setResourceResolvers(Collections.singletonList(fileResourceResolver));
@@ -30,6 +60,51 @@ class FileResourceHttpRequestHandler extends ResourceHttpRequestHandler {
         this.setCacheControl(cacheControl);
     }
 
+    /**
+     * 文件资源直接通过 FileChannel 输出，不经过堆内存，支持 Range 请求(包括多个范围)
+     * Tomcat 支持 sendfile 时，单个范围或者整个文件交给 Tomcat 通过 sendfile 发送
+     */
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        final Resource resource = getResource(request);
+        if(!(resource instanceof ReadablePathResource) || HttpMethod.OPTIONS.matches(request.getMethod())) {
+            super.handleRequest(request, response);
+            return;
+        }
+        checkRequest(request);
+        prepareResponse(response);
+        final long lastModified = resource.lastModified();
+        if(new ServletWebRequest(request, response).checkNotModified(lastModified)) {
+            return;
+        }
+        final MediaType mediaType = getMediaType(request, resource);
+        setHeaders(response, resource, mediaType);
+
+        final Path path = ((ReadablePathResource) resource).getPath();
+        final long length = resource.contentLength();
+        final String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if(rangeHeader == null || !isIfRangeMatched(request, response, lastModified)) {
+            transfer(request, response, path, 0, length);
+            return;
+        }
+        final List<ResourceRegion> regions;
+        try {
+            regions = HttpRange.toResourceRegions(HttpRange.parseRanges(rangeHeader), resource);
+        } catch (IllegalArgumentException ex) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if(regions.size() == 1) {
+            final ResourceRegion region = regions.get(0);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(region, length));
+            transfer(request, response, path, region.getPosition(), region.getCount());
+            return;
+        }
+        transferMultipart(response, path, regions, mediaType, length);
+    }
+
     @Override
     protected MediaType getMediaType(HttpServletRequest request,
                                      Resource resource) {
@@ -46,4 +121,97 @@ class FileResourceHttpRequestHandler extends ResourceHttpRequestHandler {
         this.getLocations().add(null);
         super.afterPropertiesSet();
     }
+
+    /**
+     * If-Range 与当前的 ETag 或者最后修改时间不一致时文件已经变化，忽略 Range，返回整个文件
+     * ETag 使用强比较，弱 ETag 不匹配
+     */
+    private boolean isIfRangeMatched(HttpServletRequest request, HttpServletResponse response, long lastModified) {
+        final String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if(ifRange == null) {
+            return true;
+        }
+        if(ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            final String eTag = response.getHeader(HttpHeaders.ETAG);
+            return !ifRange.startsWith("W/") && ifRange.equals(eTag);
+        }
+        final long date;
+        try {
+            date = request.getDateHeader(HttpHeaders.IF_RANGE);
+        } catch (IllegalArgumentException ex) {
+            return false;
+        }
+        return date != -1 && lastModified / 1000 == date / 1000;
+    }
+
+    /**
+     * 输出文件的一段
+     * @param request request
+     * @param response response
+     * @param path 文件
+     * @param position 开始位置
+     * @param count 长度
+     */
+    private void transfer(HttpServletRequest request, HttpServletResponse response, Path path,
+                          long position, long count) throws IOException {
+        response.setContentLengthLong(count);
+        if(count >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, position);
+            request.setAttribute(SENDFILE_END, position + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            transferTo(channel, position, count, Channels.newChannel(response.getOutputStream()));
+        }
+    }
+
+    /**
+     * 多个范围按照 multipart/byteranges 输出，每个部分直接从 FileChannel 传输
+     */
+    private void transferMultipart(HttpServletResponse response, Path path, List<ResourceRegion> regions,
+                                   MediaType mediaType, long length) throws IOException {
+        final String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        final List<byte[]> partHeaders = new ArrayList<>(regions.size());
+        final byte[] end = ("\r\n--" + boundary + "--").getBytes(StandardCharsets.US_ASCII);
+        long contentLength = end.length;
+        for(ResourceRegion region: regions) {
+            final String partHeader = "\r\n--" + boundary + "\r\n" +
+                    HttpHeaders.CONTENT_TYPE + ": " + mediaType + "\r\n" +
+                    HttpHeaders.CONTENT_RANGE + ": " + contentRange(region, length) + "\r\n\r\n";
+            final byte[] bytes = partHeader.getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(bytes);
+            contentLength += bytes.length + region.getCount();
+        }
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+
+        final ServletOutputStream out = response.getOutputStream();
+        final WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            for(int i = 0; i < regions.size(); i++) {
+                final ResourceRegion region = regions.get(i);
+                out.write(partHeaders.get(i));
+                transferTo(channel, region.getPosition(), region.getCount(), target);
+            }
+        }
+        out.write(end);
+    }
+
+    private void transferTo(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            final long transferred = channel.transferTo(position, remaining, target);
+            if(transferred <= 0) {
+                throw new EOFException("file truncated while transferring");
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+    }
+
+    private String contentRange(ResourceRegion region, long length) {
+        final long start = region.getPosition();
+        return "bytes " + start + "-" + (start + region.getCount() - 1) + "/" + length;
+    }
 }
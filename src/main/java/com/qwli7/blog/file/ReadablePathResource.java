@@ -29,6 +29,14 @@ class ReadablePathResource implements FilePathResource {
         this.path = path;
     }
 
+    /**
+     * 文件路径，用于通过 FileChannel 直接输出
+     * @return Path
+     */
+    public Path getPath() {
+        return path;
+    }
+
     @Override
     public boolean exists() {
         return true;
@@ -56,7 +64,7 @@ class ReadablePathResource implements FilePathResource {
 
     @Override
     public long lastModified() throws IOException {
-        return -1;
+        return path.toFile().lastModified();
     }
 
     @Override
@@ -1,9 +1,12 @@
 package com.qwli7.blog.mapper;
 
 import com.qwli7.blog.entity.Article;
+import com.qwli7.blog.entity.ArticleStatus;
 import com.qwli7.blog.entity.Category;
 import com.qwli7.blog.entity.vo.HandledArticleQueryParam;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 import java.util.Optional;
@@ -90,7 +93,18 @@ public interface ArticleMapper {
      */
     void deleteById(int id);
 
-    List<Article> findByIds(List<Integer> ids);
+    /**
+     * 批量删除文章
+     * @param ids ids
+     */
+    void deleteByIds(@Param("ids") List<Integer> ids);
+
+    /**
+     * 根据 ids 查询文章
+     * @param ids ids
+     * @return List
+     */
+    List<Article> findByIds(@Param("ids") List<Integer> ids);
 
     /**
      * 查询分类下的文章
@@ -100,16 +114,25 @@ public interface ArticleMapper {
     long countByCategory(Category category);
 
     /**
-     * 获取上一篇文章
-     * @param id id
-     * @return Article
+     * 查询导航索引需要的文章
+     * @param status status
+     * @return List
      */
-    Optional<Article> findPrePage(int id);
+    List<Article> findNavArticles(@Param("status") ArticleStatus status);
 
     /**
-     * 获取下一篇文章
-     * @param id id
-     * @return Article
+     * 查询静态导出需要的公开文章，只包含判断页面是否变化的字段
+     * @param status status
+     * @return List
+     */
+    List<Article> findExportArticles(@Param("status") ArticleStatus status);
+
+    /**
+     * 以游标的方式按发布时间倒序查询公开文章，用于生成 sitemap 和 feed，
+     * 需要在事务中遍历
+     * @param status status
+     * @param limit 最多返回的数量，为空时不限制
+     * @return Cursor
      */
-    Optional<Article> findNextArticle(int id);
+    Cursor<Article> findFeedArticles(@Param("status") ArticleStatus status, @Param("limit") Integer limit);
 }
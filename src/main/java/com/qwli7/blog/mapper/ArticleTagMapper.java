@@ -4,7 +4,9 @@ import com.qwli7.blog.entity.Article;
 import com.qwli7.blog.entity.ArticleTag;
 import com.qwli7.blog.entity.Tag;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,6 +35,26 @@ public interface ArticleTagMapper {
      */
     void deleteByArticle(Article article);
 
+    /**
+     * 获取文章的标签 id
+     * @param article article
+     * @return List
+     */
+    List<Integer> findTagIdsByArticle(Article article);
+
+    /**
+     * 删除文章下指定的标签关联
+     * @param articleId articleId
+     * @param tagIds tagIds
+     */
+    void deleteByArticleAndTagIds(@Param("articleId") int articleId, @Param("tagIds") Collection<Integer> tagIds);
+
+    /**
+     * 根据文章 ids 批量删除 ArticleTag
+     * @param articleIds articleIds
+     */
+    void deleteByArticleIds(@Param("articleIds") List<Integer> articleIds);
+
     /**
      * 根据标签删除 ArticleTag
      * @param tag tag
@@ -1,7 +1,11 @@
 package com.qwli7.blog.mapper;
 
+import com.qwli7.blog.CacheConfiguration;
 import com.qwli7.blog.entity.Category;
 import org.apache.ibatis.annotations.Mapper;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,6 +15,7 @@ import java.util.Optional;
  * 2021/2/22 13:49
  * 功能：CategoryMapper
  **/
+@CacheConfig(cacheNames = CacheConfiguration.CATEGORY_CACHE)
 @Mapper
 public interface CategoryMapper {
 
@@ -25,12 +30,14 @@ public interface CategoryMapper {
      * 插入分类
      * @param category category
      */
+    @CacheEvict(allEntries = true)
     void insert(Category category);
 
     /**
      * 获取所有的分类
      * @return List
      */
+    @Cacheable(key = "'all'")
     List<Category> findAll();
 
     /**
@@ -38,17 +45,20 @@ public interface CategoryMapper {
      * @param id id
      * @return Category
      */
+    @Cacheable(key = "'id:' + #p0")
     Optional<Category> findById(int id);
 
     /**
      * 删除分类
      * @param id id
      */
+    @CacheEvict(allEntries = true)
     void deleteById(int id);
 
     /**
      * 更新分类
      * @param category category
      */
+    @CacheEvict(allEntries = true)
     void update(Category category);
 }
@@ -4,7 +4,9 @@ import com.qwli7.blog.entity.Comment;
 import com.qwli7.blog.entity.CommentModule;
 import com.qwli7.blog.entity.vo.CommentQueryParam;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +24,13 @@ public interface CommentMapper {
      */
     void deleteByModule(CommentModule commentModule);
 
+    /**
+     * 根据模块名称和模块 ids 批量删除评论
+     * @param moduleName moduleName
+     * @param moduleIds moduleIds
+     */
+    void deleteByModuleIds(@Param("moduleName") String moduleName, @Param("moduleIds") List<Integer> moduleIds);
+
     /**
      * 根据 id 查询评论
      * @param id id
@@ -55,16 +64,24 @@ public interface CommentMapper {
     void update(Comment comment);
 
     /**
-     * 获取评论数量
+     * 获取根评论数量
      * @param commentQueryParam commentQueryParam
      * @return count
      */
     long count(CommentQueryParam commentQueryParam);
 
     /**
-     * 分页获取评论
+     * 分页获取根评论
      * @param commentQueryParam commentQueryParam
      * @return List
      */
     List<Comment> findPage(CommentQueryParam commentQueryParam);
+
+    /**
+     * 获取根评论下的所有子孙评论
+     * @param module module
+     * @param rootIds 根评论 ids
+     * @return List
+     */
+    List<Comment> findDescendants(@Param("module") CommentModule module, @Param("rootIds") Collection<Integer> rootIds);
 }
@@ -5,6 +5,7 @@ import com.qwli7.blog.entity.MomentArchive;
 import com.qwli7.blog.entity.vo.MomentQueryParam;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 import java.util.List;
 import java.util.Optional;
@@ -99,18 +100,22 @@ public interface MomentMapper {
     List<MomentArchive> findArchivePage(MomentQueryParam queryParam);
 
     /**
-     * 获取上一篇动态
-     * @param moment moment
-     * @return Optional
+     * 查询导航索引需要的公开动态
+     * @return List
      */
-    Optional<Moment> findPreMoment(Moment moment);
+    List<Moment> findNavMoments();
 
     /**
-     * 获取下一篇动态
-     * @param moment moment
-     * @return Optional
+     * 查询静态导出需要的公开动态，只包含判断页面是否变化的字段
+     * @return List
+     */
+    List<Moment> findExportMoments();
+
+    /**
+     * 以游标的方式查询公开动态，用于生成 sitemap，需要在事务中遍历
+     * @return Cursor
      */
-    Optional<Moment> findNextMoment(Moment moment);
+    Cursor<Moment> findFeedMoments();
 
     /**
      * 获取最近的动态
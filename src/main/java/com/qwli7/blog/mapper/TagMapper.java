@@ -1,9 +1,15 @@
 package com.qwli7.blog.mapper;
 
+import com.qwli7.blog.CacheConfiguration;
 import com.qwli7.blog.entity.Tag;
 import com.qwli7.blog.entity.vo.CommonQueryParam;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +19,7 @@ import java.util.Optional;
  * 2021/2/22 13:49
  * 功能：TagMapper
  **/
+@CacheConfig(cacheNames = CacheConfiguration.TAG_CACHE)
 @Mapper
 public interface TagMapper {
 
@@ -21,6 +28,7 @@ public interface TagMapper {
      * @param id id
      * @return Tag
      */
+    @Cacheable(key = "'id:' + #p0")
     Optional<Tag> findById(int id);
 
     /**
@@ -34,24 +42,42 @@ public interface TagMapper {
      * @param name name
      * @return Tag
      */
+    @Cacheable(key = "'name:' + #p0")
     Optional<Tag> findByName(String name);
 
+    /**
+     * 根据名称批量查询 Tag
+     * @param names names
+     * @return List
+     */
+    List<Tag> findByNames(@Param("names") Collection<String> names);
+
     /**
      * 删除 Tag
      * @param id id
      */
+    @CacheEvict(allEntries = true)
     void deleteById(int id);
 
     /**
      * 插入 Tag
      * @param tag tag
      */
+    @CacheEvict(allEntries = true)
     void insert(Tag tag);
 
+    /**
+     * 批量插入 Tag，插入后回填 id
+     * @param tags tags
+     */
+    @CacheEvict(allEntries = true)
+    void batchInsert(@Param("tags") List<Tag> tags);
+
     /**
      * 更新 Tag
      * @param tag tag
      */
+    @CacheEvict(allEntries = true)
     void update(Tag tag);
 
     /**
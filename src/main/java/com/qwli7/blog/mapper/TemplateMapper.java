@@ -1,8 +1,12 @@
 package com.qwli7.blog.mapper;
 
+import com.qwli7.blog.CacheConfiguration;
 import com.qwli7.blog.entity.Template;
 import com.qwli7.blog.entity.vo.TemplateQueryParam;
 import org.apache.ibatis.annotations.Mapper;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,6 +16,7 @@ import java.util.Optional;
  * @author liqiwen
  * @since 1.2
  */
+@CacheConfig(cacheNames = CacheConfiguration.TEMPLATE_CACHE)
 @Mapper
 public interface TemplateMapper {
 
@@ -19,6 +24,7 @@ public interface TemplateMapper {
      * 插入模板
      * @param template template
      */
+    @CacheEvict(allEntries = true)
     void insert(Template template);
 
     /**
@@ -33,18 +39,21 @@ public interface TemplateMapper {
      * @param name name
      * @return Template
      */
+    @Cacheable(key = "'name:' + #p0")
     Optional<Template> findByName(String name);
 
     /**
      * 更新模板
      * @param template template
      */
+    @CacheEvict(allEntries = true)
     void update(Template template);
 
     /**
      * 删除一个模板
      * @param id id
      */
+    @CacheEvict(allEntries = true)
     void deleteById(int id);
 
     /**
@@ -58,6 +67,7 @@ public interface TemplateMapper {
      * 批量插入模板列表
      * @param templates defaultTemplates
      */
+    @CacheEvict(allEntries = true)
     void batchInsert(List<Template> templates);
 
     /**
@@ -13,6 +13,7 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.IndexSearcher;
@@ -116,7 +117,20 @@ public class ArticleIndexer {
         final Document document = createDocument(article);
         indexWriter.addDocument(document);
         indexWriter.commit();
-        indexWriter.close();
+    }
+
+    /**
+     * 批量删除索引
+     * @param ids 文章 ids
+     * @throws IOException IOException
+     */
+    public void deleteIndexes(List<Integer> ids) throws IOException {
+        if(ids == null || ids.isEmpty()) {
+            return;
+        }
+        final Term[] terms = ids.stream().map(id -> new Term(ID, String.valueOf(id))).toArray(Term[]::new);
+        indexWriter.deleteDocuments(terms);
+        indexWriter.commit();
     }
 
     /**
@@ -1,7 +1,11 @@
 package com.qwli7.blog.service.impl;
 
 import com.qwli7.blog.BlogContext;
+import com.qwli7.blog.RequestIdentityMap;
 import com.qwli7.blog.BlogProperties;
+import com.qwli7.blog.component.EntityCache;
+import com.qwli7.blog.component.HitsCounter;
+import com.qwli7.blog.component.NavigationIndex;
 import com.qwli7.blog.entity.*;
 import com.qwli7.blog.entity.dto.PageDto;
 import com.qwli7.blog.entity.vo.ArticleQueryParam;
@@ -9,6 +13,7 @@ import com.qwli7.blog.entity.vo.HandledArticleQueryParam;
 import com.qwli7.blog.event.ArticleBatchDeleteEvent;
 import com.qwli7.blog.event.ArticleDeleteEvent;
 import com.qwli7.blog.event.ArticlePostEvent;
+import com.qwli7.blog.event.ArticleUpdateEvent;
 import com.qwli7.blog.exception.LogicException;
 import com.qwli7.blog.exception.ResourceNotFoundException;
 import com.qwli7.blog.mapper.*;
@@ -19,9 +24,13 @@ import com.qwli7.blog.service.CommentModuleHandler;
 import com.qwli7.blog.service.Markdown2Html;
 import com.qwli7.blog.util.JsoupUtil;
 import com.qwli7.blog.util.TimeUtils;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.mybatis.spring.SqlSessionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -48,6 +57,11 @@ import java.util.stream.Collectors;
 @Service
 public class ArticleServiceImpl implements ArticleService, CommentModuleHandler {
 
+    /**
+     * 批量删除时每批的文章数量
+     */
+    private static final int DELETE_BATCH_SIZE = 500;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
 
     private final ArticleMapper articleMapper;
@@ -60,13 +74,21 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
     private final ScheduledExecutorService scheduledExecutorService;
     private ArticleIndexer articleIndexer;
     private final ApplicationEventPublisher publisher;
+    private final HitsCounter hitsCounter;
+    private final SqlSessionTemplate batchSqlSessionTemplate;
+    private final NavigationIndex navigationIndex;
+    private final EntityCache entityCache;
 
     public ArticleServiceImpl(Markdown2Html markdown2Html, ArticleMapper articleMapper,
                               CategoryMapper categoryMapper, ArticleTagMapper articleTagMapper,
                               TagMapper tagMapper, CommentMapper commentMapper,
                               ScheduledExecutorService scheduledExecutorService,
                               BlogProperties blogProperties,
-                              ApplicationEventPublisher publisher) {
+                              ApplicationEventPublisher publisher,
+                              HitsCounter hitsCounter,
+                              SqlSessionFactory sqlSessionFactory,
+                              NavigationIndex navigationIndex,
+                              EntityCache entityCache) {
         this.markdown2Html = markdown2Html;
         this.articleMapper = articleMapper;
         this.articleTagMapper = articleTagMapper;
@@ -81,6 +103,11 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
             logger.error("创建文章索引类失败: [{}]", ex.getMessage(), ex);
         }
         this.publisher = publisher;
+        this.hitsCounter = hitsCounter;
+        // 不能注册为 Bean，否则会替换掉 mybatis 默认的 SqlSessionTemplate
+        this.batchSqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        this.navigationIndex = navigationIndex;
+        this.entityCache = entityCache;
     }
 
     /**
@@ -213,6 +240,7 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
         }
         processArticleTagsAfterInsertOrUpdate(article);
         articleMapper.update(article);
+        articleMapper.findById(article.getId()).ifPresent(e -> publisher.publishEvent(new ArticleUpdateEvent(this, e)));
 
         if(article.getStatus().equals(ArticleStatus.POST)) {
             //重构索引
@@ -272,6 +300,7 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
 
         processArticlesTags(articles);
         processContentsAndFeatureImages(articles);
+        articles.forEach(this::mergePendingHits);
 
         return new PageDto<>(queryParam, count, articles);
     }
@@ -322,14 +351,17 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
         }
         Optional<Article> articleOp;
         if(id == null) {
-            articleOp = articleMapper.findByAlias(idOrAlias);
+            articleOp = RequestIdentityMap.findByAlias(Article.class, idOrAlias,
+                    () -> entityCache.findArticleByAlias(idOrAlias), Article::getId);
         } else {
-            articleOp = articleMapper.findById(id);
+            articleOp = findById(id);
         }
         if(!articleOp.isPresent()) {
             throw new ResourceNotFoundException("article.notExists", "文章不存在");
         }
-        final Article article = articleOp.get();
+        // 下面会转换内容、合并点击量，不能修改请求内共享的实例
+        final Article article = new Article();
+        BeanUtils.copyProperties(articleOp.get(), article);
         final ArticleStatus status = article.getStatus();
 
         // 未登录情况下
@@ -339,46 +371,84 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
         }
         processArticlesTags(Collections.singletonList(article));
         processContentAndFeatureImage(article);
+        mergePendingHits(article);
         return Optional.of(article);
     }
 
     /**
      * 获取文章导航
+     * 从内存中的导航索引查找，不查询数据库
      * @param id id
      * @return ArticleNav
      */
-    @Transactional(readOnly = true)
     @Override
     public Optional<ArticleNav> findArticleNav(int id) {
-        Optional<Article> preArticleOp = articleMapper.findPrePage(id);
-        Optional<Article> nextArticleOp = articleMapper.findNextArticle(id);
-        ArticleNav articleNav = new ArticleNav();
-        preArticleOp.ifPresent(articleNav::setPrevArticle);
-        nextArticleOp.ifPresent(articleNav::setNextArticle);
-        return Optional.of(articleNav);
+        return Optional.of(navigationIndex.findArticleNav(id));
     }
 
 
-    @Transactional(propagation = Propagation.REQUIRED)
+    /**
+     * 更新点击量
+     * 点击量先累加在内存中，由 HitsCounter 定时批量写入
+     * 先从缓存中确认文章存在，不存在的 id 不计数，避免内存中累积无效的 id
+     * @param id id
+     */
     @Override
     public void hits(int id) {
-        final Article article = articleMapper.findById(id).orElseThrow(()
-                -> new ResourceNotFoundException("article.notExists", "文章不存在"));
+        if(!findById(id).isPresent()) {
+            throw new ResourceNotFoundException("article.notExists", "文章不存在");
+        }
         // 登录情况下不统计点击量
         if(BlogContext.isAuthenticated()) {
             return;
         }
-        articleMapper.updateHits(id, article.getHits() + 1);
+        hitsCounter.increase(HitsCounter.ARTICLE, id);
     }
 
+    /**
+     * 批量删除文章
+     * 在同一个事务中，使用 batch 执行器分批执行 IN 删除评论、文章标签和文章，
+     * 提交后一次性删除索引
+     * @param ids ids
+     */
     @Transactional(propagation = Propagation.REQUIRED)
     @Override
     public void deleteByIds(List<Integer> ids) {
-        List<Article> articles = articleMapper.findByIds(ids);
+        if(CollectionUtils.isEmpty(ids)) {
+            return;
+        }
+        // 同一个事务中不能切换执行器，因此这里所有的操作都使用 batch 执行器
+        final ArticleMapper batchArticleMapper = batchSqlSessionTemplate.getMapper(ArticleMapper.class);
+        final ArticleTagMapper batchArticleTagMapper = batchSqlSessionTemplate.getMapper(ArticleTagMapper.class);
+        final CommentMapper batchCommentMapper = batchSqlSessionTemplate.getMapper(CommentMapper.class);
+
+        final List<Article> articles = batchArticleMapper.findByIds(ids.stream().distinct().collect(Collectors.toList()));
         if(articles.isEmpty()) {
             return;
         }
+        final List<Integer> articleIds = articles.stream().map(Article::getId).collect(Collectors.toList());
+        for(int i = 0; i < articleIds.size(); i += DELETE_BATCH_SIZE) {
+            final List<Integer> chunk = articleIds.subList(i, Math.min(i + DELETE_BATCH_SIZE, articleIds.size()));
+            batchCommentMapper.deleteByModuleIds(getModuleName(), chunk);
+            batchArticleTagMapper.deleteByArticleIds(chunk);
+            batchArticleMapper.deleteByIds(chunk);
+        }
+        batchSqlSessionTemplate.flushStatements();
+
         publisher.publishEvent(new ArticleBatchDeleteEvent(this, articles));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    if(articleIndexer != null) {
+                        articleIndexer.deleteIndexes(articleIds);
+                    }
+                } catch (IOException e) {
+                    logger.error("method<deleteByIds> 删除文章索引失败: [{}]", e.getMessage(), e);
+                }
+            }
+        });
     }
 
     /**
@@ -399,6 +469,14 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
         }
     }
 
+    /**
+     * 合并内存中尚未写入数据库的点击量
+     * @param article article
+     */
+    private void mergePendingHits(Article article) {
+        article.setHits(hitsCounter.mergeHits(HitsCounter.ARTICLE, article.getId(), article.getHits()));
+    }
+
     /**
      * 处理内容
      * @param article article
@@ -440,27 +518,51 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
 
     /**
      * 处理文章标签
+     * 1. 一次 IN 查询出已经存在的标签，不存在的标签批量插入
+     * 2. 对比新旧标签关联，只删除移除的关联，只插入新增的关联
      * @param article article
      */
     private void processArticleTagsAfterInsertOrUpdate(Article article) {
-        articleTagMapper.deleteByArticle(article);
-        List<ArticleTag> articleTags = new ArrayList<>();
-        for(Tag tag: article.getTags()) {
-            String name = tag.getName();
-            name = StringUtils.trimAllWhitespace(name);
-            Optional<Tag> tagOp = tagMapper.findByName(name);
-            Tag oldTag;
-            if(tagOp.isPresent()){
-                oldTag = tagOp.get();
-            } else {
-                oldTag = new Tag();
-                oldTag.setName(name);
-                oldTag.setCreateAt(LocalDateTime.now());
-                oldTag.setModifyAt(LocalDateTime.now());
-                tagMapper.insert(oldTag);
+        Set<String> names = new LinkedHashSet<>();
+        if(article.getTags() != null) {
+            for(Tag tag: article.getTags()) {
+                final String name = StringUtils.trimAllWhitespace(tag.getName());
+                if(!StringUtils.isEmpty(name)) {
+                    names.add(name);
+                }
             }
-            articleTags.add(new ArticleTag(article.getId(), oldTag.getId()));
         }
+        // 数据库比较时不区分大小写，这里也保持一致
+        Map<String, Tag> tagMap = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        if(!names.isEmpty()) {
+            tagMapper.findByNames(names).forEach(e -> tagMap.put(e.getName(), e));
+            List<Tag> newTags = new ArrayList<>();
+            for(String name: names) {
+                if(!tagMap.containsKey(name)) {
+                    Tag newTag = new Tag();
+                    newTag.setName(name);
+                    newTag.setCreateAt(LocalDateTime.now());
+                    newTag.setModifyAt(LocalDateTime.now());
+                    newTags.add(newTag);
+                    tagMap.put(name, newTag);
+                }
+            }
+            if(!newTags.isEmpty()) {
+                tagMapper.batchInsert(newTags);
+            }
+        }
+
+        final Set<Integer> newTagIds = tagMap.values().stream().map(Tag::getId).collect(Collectors.toSet());
+        final Set<Integer> oldTagIds = new HashSet<>(articleTagMapper.findTagIdsByArticle(article));
+
+        final Set<Integer> removedTagIds = new HashSet<>(oldTagIds);
+        removedTagIds.removeAll(newTagIds);
+        if(!removedTagIds.isEmpty()) {
+            articleTagMapper.deleteByArticleAndTagIds(article.getId(), removedTagIds);
+        }
+
+        final List<ArticleTag> articleTags = newTagIds.stream().filter(e -> !oldTagIds.contains(e))
+                .map(e -> new ArticleTag(article.getId(), e)).collect(Collectors.toList());
         if(!articleTags.isEmpty()) {
             articleTagMapper.batchInsert(articleTags);
         }
@@ -475,7 +577,7 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
         if(module == null) {
             throw new LogicException("invalid.module", "模块不能为空");
         }
-        final Optional<Article> articleOp = articleMapper.findById(module.getId());
+        final Optional<Article> articleOp = findById(module.getId());
         if(!articleOp.isPresent()) {
             throw new ResourceNotFoundException("article.notExists", "内容不存在");
         }
@@ -513,7 +615,7 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
             throw new LogicException("illegal.operators", "无效的操作");
         }
 
-        final Optional<Article> articleOp = articleMapper.findById(module.getId());
+        final Optional<Article> articleOp = findById(module.getId());
         if(!articleOp.isPresent()) {
             throw new ResourceNotFoundException("article.notExists", "内容不存在");
         }
@@ -521,6 +623,15 @@ public class ArticleServiceImpl implements ArticleService, CommentModuleHandler
 
     }
 
+    /**
+     * 按 id 查询文章，同一个请求中只查询一次，已发布的文章从缓存中获取
+     * @param id id
+     * @return Optional
+     */
+    private Optional<Article> findById(int id) {
+        return RequestIdentityMap.findById(Article.class, id, () -> entityCache.findArticle(id));
+    }
+
     /**
      * 模块名称
      * @return String
@@ -1,12 +1,14 @@
 package com.qwli7.blog.service.impl;
 
 import com.qwli7.blog.entity.Category;
+import com.qwli7.blog.event.CategoryChangeEvent;
 import com.qwli7.blog.event.CategoryDeleteEvent;
 import com.qwli7.blog.exception.LogicException;
 import com.qwli7.blog.exception.ResourceNotFoundException;
 import com.qwli7.blog.mapper.ArticleMapper;
 import com.qwli7.blog.mapper.CategoryMapper;
 import com.qwli7.blog.service.CategoryService;
+import org.springframework.beans.BeanUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -80,6 +82,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setCreateAt(LocalDateTime.now());
         category.setModifyAt(LocalDateTime.now());
         categoryMapper.insert(category);
+        publisher.publishEvent(new CategoryChangeEvent(this, category));
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
@@ -89,12 +92,15 @@ public class CategoryServiceImpl implements CategoryService {
         if(!categoryOp.isPresent()) {
             throw new LogicException("category.notExists", "分类不存在");
         }
-        final Category old = categoryOp.get();
-        if(old.getName().equals(category.getName())) {
+        if(categoryOp.get().getName().equals(category.getName())) {
             return;
         }
+        // findById 返回的是缓存中的实例，修改副本，避免事务回滚后缓存中留下未保存的修改
+        final Category old = new Category();
+        BeanUtils.copyProperties(categoryOp.get(), old);
         old.setName(category.getName());
         old.setModifyAt(LocalDateTime.now());
         categoryMapper.update(old);
+        publisher.publishEvent(new CategoryChangeEvent(this, old));
     }
 }
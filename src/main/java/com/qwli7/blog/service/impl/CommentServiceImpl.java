@@ -31,7 +31,9 @@ import org.springframework.util.StringUtils;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -196,6 +198,7 @@ public class CommentServiceImpl implements CommentService {
 
     /**
      * 分页查询评论
+     * 按根评论分页，再用一次会话路径的范围查询取出这些根评论下的所有回复，在内存中组装成树
      * @param commentQueryParam 评论查询参数
      * @return PageDto
      */
@@ -219,13 +222,67 @@ public class CommentServiceImpl implements CommentService {
         if(count == 0) {
             return new PageDto<>(commentQueryParam, 0, new ArrayList<>());
         }
-        List<Comment> comments = commentMapper.findPage(commentQueryParam);
-        if(CollectionUtils.isEmpty(comments)) {
+        List<Comment> roots = commentMapper.findPage(commentQueryParam);
+        if(CollectionUtils.isEmpty(roots)) {
             return new PageDto<>(commentQueryParam, 0, new ArrayList<>());
         }
-        final List<CommentDto> commentDtos = comments.stream().map(CommentDto::new).collect(Collectors.toList());
+        final List<Integer> rootIds = roots.stream().map(Comment::getId).collect(Collectors.toList());
+        final List<Comment> descendants = commentMapper.findDescendants(commentModule, rootIds);
+        return new PageDto<>(commentQueryParam, ((int) count), buildCommentTree(roots, descendants));
+    }
 
-        return new PageDto<>(commentQueryParam, ((int) count), commentDtos);
+    /**
+     * 在内存中组装评论树
+     * 子孙评论按 id 升序，父评论一定先于子评论出现；父评论已被删除时挂到会话路径上最近的祖先下
+     * @param roots 根评论
+     * @param descendants 子孙评论
+     * @return List
+     */
+    private List<CommentDto> buildCommentTree(List<Comment> roots, List<Comment> descendants) {
+        final Map<Integer, CommentDto> dtoMap = new HashMap<>();
+        final List<CommentDto> rootDtos = new ArrayList<>(roots.size());
+        for(Comment root: roots) {
+            final CommentDto rootDto = new CommentDto(root);
+            dtoMap.put(root.getId(), rootDto);
+            rootDtos.add(rootDto);
+        }
+        for(Comment comment: descendants) {
+            final CommentDto parentDto = findNearestAncestor(comment.getConversationPath(), dtoMap);
+            if(parentDto == null) {
+                continue;
+            }
+            final CommentDto commentDto = new CommentDto(comment);
+            CommentDto parent = new CommentDto();
+            parent.setId(parentDto.getId());
+            parent.setName(parentDto.getName());
+            parent.setAdmin(parentDto.isAdmin());
+            parent.setCommentModule(parentDto.getCommentModule());
+            commentDto.setParent(parent);
+            parentDto.getChildren().add(commentDto);
+            dtoMap.put(comment.getId(), commentDto);
+        }
+        return rootDtos;
+    }
+
+    /**
+     * 根据会话路径从后往前查找已经加载的祖先评论
+     * @param conversationPath 会话路径，例如 /1/5/
+     * @param dtoMap 已经加载的评论
+     * @return CommentDto
+     */
+    private CommentDto findNearestAncestor(String conversationPath, Map<Integer, CommentDto> dtoMap) {
+        final String[] ids = StringUtils.tokenizeToStringArray(conversationPath, DEFAULT_PARENT_PATH);
+        for(int i = ids.length - 1; i >= 0; i--) {
+            try {
+                final CommentDto ancestor = dtoMap.get(Integer.parseInt(ids[i]));
+                if(ancestor != null) {
+                    return ancestor;
+                }
+            } catch (NumberFormatException ignored) {
+                // ignored this exception
+            }
+        }
+        return null;
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.qwli7.blog.service.impl;
 
 import com.qwli7.blog.BlogProperties;
+import com.qwli7.blog.component.RenderProfiler;
 import com.qwli7.blog.entity.dto.ResultDto;
 import com.qwli7.blog.service.Markdown2Html;
 import com.qwli7.blog.util.MapperUtils;
@@ -38,7 +39,10 @@ public class DefaultMarkdown2Html implements Markdown2Html {
      */
     private final Markdown2Html delegate;
 
-    public DefaultMarkdown2Html(BlogProperties blogProperties, RestTemplate restTemplate) {
+    private final RenderProfiler renderProfiler;
+
+    public DefaultMarkdown2Html(BlogProperties blogProperties, RestTemplate restTemplate, RenderProfiler renderProfiler) {
+        this.renderProfiler = renderProfiler;
         final String markdownServerUrl = blogProperties.getMarkdownServerUrl();
         if(StringUtils.isEmpty(markdownServerUrl)) {
             this.delegate = new CommonMarkdown2Html();
@@ -52,12 +56,22 @@ public class DefaultMarkdown2Html implements Markdown2Html {
 
     @Override
     public Map<Integer, String> toHtmls(Map<Integer, String> markdownMap) {
-        return delegate.toHtmls(markdownMap);
+        final long start = System.nanoTime();
+        try {
+            return delegate.toHtmls(markdownMap);
+        } finally {
+            renderProfiler.recordMarkdown(System.nanoTime() - start);
+        }
     }
 
     @Override
     public String toHtml(String markdown) {
-        return delegate.toHtml(markdown);
+        final long start = System.nanoTime();
+        try {
+            return delegate.toHtml(markdown);
+        } finally {
+            renderProfiler.recordMarkdown(System.nanoTime() - start);
+        }
     }
 
     /**
@@ -1,6 +1,10 @@
 package com.qwli7.blog.service.impl;
 
 import com.qwli7.blog.BlogContext;
+import com.qwli7.blog.RequestIdentityMap;
+import com.qwli7.blog.component.EntityCache;
+import com.qwli7.blog.component.HitsCounter;
+import com.qwli7.blog.component.NavigationIndex;
 import com.qwli7.blog.entity.CommentModule;
 import com.qwli7.blog.entity.Moment;
 import com.qwli7.blog.entity.MomentArchive;
@@ -9,6 +13,7 @@ import com.qwli7.blog.entity.dto.PageDto;
 import com.qwli7.blog.entity.vo.MomentQueryParam;
 import com.qwli7.blog.event.MomentDeleteEvent;
 import com.qwli7.blog.event.MomentPostEvent;
+import com.qwli7.blog.event.MomentUpdateEvent;
 import com.qwli7.blog.exception.LogicException;
 import com.qwli7.blog.exception.ResourceNotFoundException;
 import com.qwli7.blog.mapper.CommentMapper;
@@ -17,6 +22,7 @@ import com.qwli7.blog.service.CommentModuleHandler;
 import com.qwli7.blog.service.Markdown2Html;
 import com.qwli7.blog.service.MomentService;
 import com.qwli7.blog.util.JsoupUtil;
+import org.springframework.beans.BeanUtils;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -40,14 +46,23 @@ public class MomentServiceImpl implements MomentService, CommentModuleHandler {
     private final ApplicationEventPublisher publisher;
     private final Markdown2Html markdown2Html;
     private final CommentMapper commentMapper;
+    private final HitsCounter hitsCounter;
+    private final NavigationIndex navigationIndex;
+    private final EntityCache entityCache;
 
     public MomentServiceImpl(MomentMapper momentMapper, Markdown2Html markdown2Html,
                              CommentMapper commentMapper,
-                             ApplicationEventPublisher publisher) {
+                             ApplicationEventPublisher publisher,
+                             HitsCounter hitsCounter,
+                             NavigationIndex navigationIndex,
+                             EntityCache entityCache) {
         this.momentMapper = momentMapper;
         this.markdown2Html = markdown2Html;
         this.commentMapper = commentMapper;
         this.publisher = publisher;
+        this.hitsCounter = hitsCounter;
+        this.navigationIndex = navigationIndex;
+        this.entityCache = entityCache;
     }
 
     /**
@@ -78,6 +93,7 @@ public class MomentServiceImpl implements MomentService, CommentModuleHandler {
                 -> new ResourceNotFoundException("moment.notExists", "动态不存在"));
         moment.setModifyAt(LocalDateTime.now());
         momentMapper.update(moment);
+        momentMapper.findById(moment.getId()).ifPresent(e -> publisher.publishEvent(new MomentUpdateEvent(this, e)));
     }
 
     /**
@@ -129,11 +145,13 @@ public class MomentServiceImpl implements MomentService, CommentModuleHandler {
     @Transactional(readOnly = true)
     @Override
     public Optional<Moment> findMoment(int id) {
-        final Optional<Moment> momentOp = momentMapper.findById(id);
+        final Optional<Moment> momentOp = findById(id);
         if(!momentOp.isPresent()) {
             throw new ResourceNotFoundException("moment.notExists", "动态不存在");
         }
-        final Moment moment = momentOp.get();
+        // 下面会转换内容，不能修改请求内共享的实例
+        final Moment moment = new Moment();
+        BeanUtils.copyProperties(momentOp.get(), moment);
         if(moment.getPrivate() && !BlogContext.isAuthenticated()) {
             throw new LogicException("access.reject", "访问拒绝");
         }
@@ -190,20 +208,13 @@ public class MomentServiceImpl implements MomentService, CommentModuleHandler {
 
     /**
      * 获取动态上下导航
+     * 从内存中的导航索引查找，不查询数据库
      * @param id id
      * @return MomentNav
      */
-    @Transactional(readOnly = true)
     @Override
     public Optional<MomentNav> findMomentNav(int id) {
-        Moment current = momentMapper.findById(id).orElseThrow(() ->
-                new ResourceNotFoundException("moment.notExists", "动态不存在"));
-        MomentNav momentNav = new MomentNav();
-        final Optional<Moment> preMomentOp = momentMapper.findPreMoment(current);
-        final Optional<Moment> nextMomentOp = momentMapper.findNextMoment(current);
-        nextMomentOp.ifPresent(momentNav::setNextMoment);
-        preMomentOp.ifPresent(momentNav::setPrevMoment);
-        return Optional.of(momentNav);
+        return Optional.of(navigationIndex.findMomentNav(id));
     }
 
     /**
@@ -228,19 +239,26 @@ public class MomentServiceImpl implements MomentService, CommentModuleHandler {
         moments.forEach(e -> {
             JsoupUtil.getFirstImage(markdownMap.get(e.getId())).ifPresent(e::setFeatureImage);
             e.setContent(markdownMap.get(e.getId()));
+            e.setHits(hitsCounter.mergeHits(HitsCounter.MOMENT, e.getId(), e.getHits()));
         });
     }
 
-    @Transactional(propagation = Propagation.REQUIRED)
+    /**
+     * 点击动态
+     * 点击量先累加在内存中，由 HitsCounter 定时批量写入
+     * 先从缓存中确认动态存在，不存在的 id 不计数，避免内存中累积无效的 id
+     * @param id id
+     */
     @Override
     public void hits(int id) {
-        final Moment moment = momentMapper.findById(id).orElseThrow(()
-                -> new ResourceNotFoundException("moment.notExists", "动态不存在"));
+        if(!findById(id).isPresent()) {
+            throw new ResourceNotFoundException("moment.notExists", "动态不存在");
+        }
         // 登录的情况下不增加点击量
         if(BlogContext.isAuthenticated()) {
             return;
         }
-        momentMapper.updateHits(id, moment.getHits()+1);
+        hitsCounter.increase(HitsCounter.MOMENT, id);
     }
 
     @Transactional(readOnly = true)
@@ -275,7 +293,7 @@ public class MomentServiceImpl implements MomentService, CommentModuleHandler {
     public void validateBeforeInsert(CommentModule module) {
         Assert.notNull(module, "commentModule not null.");
         final Integer id = module.getId();
-        final Optional<Moment> momentOp = momentMapper.findById(id);
+        final Optional<Moment> momentOp = findById(id);
         if(!momentOp.isPresent()) {
             throw new LogicException("comment.notExists", "动态不存在");
         }
@@ -301,11 +319,20 @@ public class MomentServiceImpl implements MomentService, CommentModuleHandler {
         if(!getModuleName().equals(name)) {
             throw new LogicException("invalid.module", "无效的模块");
         }
-        final Moment moment = momentMapper.findById(id).orElseThrow(()
+        final Moment moment = findById(id).orElseThrow(()
                 -> new LogicException("moment.notExists", "动态不存在"));
 
         if(moment.getPrivate() && !BlogContext.isAuthenticated()) {
             throw new LogicException("illegal.operator", "无效的操作");
         }
     }
+
+    /**
+     * 按 id 查询动态，同一个请求中只查询一次，其次从缓存中获取
+     * @param id id
+     * @return Optional
+     */
+    private Optional<Moment> findById(int id) {
+        return RequestIdentityMap.findById(Moment.class, id, () -> entityCache.findMoment(id));
+    }
 }
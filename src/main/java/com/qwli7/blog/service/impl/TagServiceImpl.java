@@ -3,6 +3,7 @@ package com.qwli7.blog.service.impl;
 import com.qwli7.blog.entity.Tag;
 import com.qwli7.blog.entity.dto.PageDto;
 import com.qwli7.blog.entity.vo.CommonQueryParam;
+import com.qwli7.blog.event.TagChangeEvent;
 import com.qwli7.blog.event.TagDeleteEvent;
 import com.qwli7.blog.exception.LogicException;
 import com.qwli7.blog.exception.ResourceNotFoundException;
@@ -61,6 +62,7 @@ public class TagServiceImpl implements TagService {
         tag.setModifyAt(LocalDateTime.now());
         tag.setCreateAt(LocalDateTime.now());
         tagMapper.insert(tag);
+        publisher.publishEvent(new TagChangeEvent(this, tag));
     }
 
     /**
@@ -120,5 +122,6 @@ public class TagServiceImpl implements TagService {
         }
         tag.setModifyAt(LocalDateTime.now());
         tagMapper.update(tag);
+        publisher.publishEvent(new TagChangeEvent(this, tag));
     }
 }
@@ -8,6 +8,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.util.StringUtils;
 import org.springframework.web.servlet.HandlerMapping;
 import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.LazyContextVariable;
 import org.thymeleaf.context.WebEngineContext;
 import org.thymeleaf.engine.AttributeName;
 import org.thymeleaf.model.IAttribute;
@@ -33,6 +34,8 @@ public class DataElementTagProcessor extends AbstractElementTagProcessor {
 
     private Map<String, AbstractDataProvider<?>> dataProviderMap;
 
+    private DataPrefetcher dataPrefetcher;
+
     public DataElementTagProcessor(String dialectPrefix) {
         super(TemplateMode.HTML,
                 dialectPrefix, // 标签前缀：即  xxx:text，这里我们的前缀是 data
@@ -70,15 +73,28 @@ public class DataElementTagProcessor extends AbstractElementTagProcessor {
             attributes.remove("name");
             attributes.remove("alias");
 
-            if (dataProvider == null) {
+            if (dataProvider == null || TemplateCompiler.isDryRun(iTemplateContext)) {
                 return;
             }
 
             WebEngineContext engineContext = (WebEngineContext) iTemplateContext;
             final HttpServletRequest request = engineContext.getRequest();
             Map<String, Object> variables = (Map<String, Object>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            // 记录在最外层的模板上，下次渲染该模板之前预取
+            dataPrefetcher.record(iTemplateContext.getTemplateStack().get(0).getTemplate(), dataProviderName, attributes);
             mergeVariables(attributes, variables);
-            final Object data = dataProvider.queryData(attributes);
+            if(Boolean.TRUE.equals(request.getAttribute(TemplateHandlerAdapter.STREAMING_ATTRIBUTE))) {
+                // 流式渲染时在第一次使用数据时才等待查询结果，之前的内容可以先输出
+                final String name = dataProviderName;
+                request.setAttribute(dataProviderName, new LazyContextVariable<Object>() {
+                    @Override
+                    protected Object loadValue() {
+                        return dataPrefetcher.getData(request, name, dataProvider, attributes);
+                    }
+                });
+                return;
+            }
+            final Object data = dataPrefetcher.getData(request, dataProviderName, dataProvider, attributes);
             request.setAttribute(dataProviderName, data);
 
         } finally {
@@ -129,5 +145,14 @@ public class DataElementTagProcessor extends AbstractElementTagProcessor {
         dataProviderMap.put(articleNavDataProvider.getName(), articleNavDataProvider);
         dataProviderMap.put(momentNavDataProvider.getName(), momentNavDataProvider);
 
+        final TagsDataProvider tagsDataProvider = applicationContext.getBean(TagsDataProvider.class);
+        dataProviderMap.put(tagsDataProvider.getName(), tagsDataProvider);
+
+        // 匿名访问时相同的数据直接从缓存中获取
+        final DataProviderCache dataProviderCache = applicationContext.getBean(DataProviderCache.class);
+        dataProviderMap.replaceAll((name, dataProvider) -> dataProviderCache.decorate(dataProvider));
+
+        dataPrefetcher = applicationContext.getBean(DataPrefetcher.class);
+        dataPrefetcher.registerDataProviders(dataProviderMap);
     }
 }
@@ -0,0 +1,76 @@
+package com.qwli7.blog.template;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.expression.EvaluationException;
+import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.spring5.dialect.SpringStandardDialect;
+import org.thymeleaf.standard.expression.IStandardVariableExpression;
+import org.thymeleaf.standard.expression.IStandardVariableExpressionEvaluator;
+import org.thymeleaf.standard.expression.StandardExpressionExecutionContext;
+
+import java.util.List;
+
+/**
+ * 替换 SpringTemplateEngine 默认的 SpringStandardDialect
+ * <p>
+ * 试运行时没有数据，表达式求值失败（EvaluationException）时记录该表达式并返回 null，继续处理模板剩余部分，
+ * 这样后面的表达式解析错误以及引用不存在的片段仍然能被发现；表达式解析错误不在此列
+ * <p>
+ * 非试运行时与默认行为一致
+ * @author liqiwen
+ * @since 2.5
+ */
+public class DryRunStandardDialect extends SpringStandardDialect {
+
+    private final IStandardVariableExpressionEvaluator evaluator = new DryRunExpressionEvaluator(super.getVariableExpressionEvaluator());
+
+    @Override
+    public IStandardVariableExpressionEvaluator getVariableExpressionEvaluator() {
+        return evaluator;
+    }
+
+    private static final class DryRunExpressionEvaluator implements IStandardVariableExpressionEvaluator {
+
+        private final Logger logger = LoggerFactory.getLogger(DryRunExpressionEvaluator.class.getName());
+
+        private final IStandardVariableExpressionEvaluator delegate;
+
+        private DryRunExpressionEvaluator(IStandardVariableExpressionEvaluator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object evaluate(IExpressionContext context, IStandardVariableExpression expression,
+                               StandardExpressionExecutionContext expContext) {
+            try {
+                return delegate.evaluate(context, expression, expContext);
+            } catch (TemplateProcessingException ex) {
+                if(!context.containsVariable(TemplateCompiler.DRY_RUN_VARIABLE) || !isEvaluationFailure(ex)) {
+                    throw ex;
+                }
+                final String failed = expression.getExpression();
+                logger.debug("method<evaluate> 试运行时表达式[{}]求值失败: [{}]", failed, ex.getMessage());
+                final Object dryRun = context.getVariable(TemplateCompiler.DRY_RUN_VARIABLE);
+                if(dryRun instanceof List) {
+                    @SuppressWarnings("unchecked")
+                    final List<String> failures = (List<String>) dryRun;
+                    failures.add(failed);
+                }
+                return null;
+            }
+        }
+
+        private boolean isEvaluationFailure(Throwable ex) {
+            Throwable cause = ex;
+            while (cause != null) {
+                if(cause instanceof EvaluationException) {
+                    return true;
+                }
+                cause = cause.getCause();
+            }
+            return false;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.qwli7.blog.template;
 
+import com.qwli7.blog.component.RenderProfiler;
 import com.qwli7.blog.entity.Template;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.thymeleaf.IEngineConfiguration;
-import org.thymeleaf.cache.AlwaysValidCacheEntryValidity;
+import org.thymeleaf.cache.ICacheEntryValidity;
+import org.thymeleaf.cache.NonCacheableCacheEntryValidity;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.ITemplateResolver;
 import org.thymeleaf.templateresolver.TemplateResolution;
@@ -36,10 +38,13 @@ public class MemoryTemplateResolver implements ITemplateResolver {
      */
     private String characterEncoding = Charset.defaultCharset().name();
 
-    private final TemplateService templateService;
+    private final TemplateVersionRegistry templateVersionRegistry;
 
-    public MemoryTemplateResolver(TemplateService templateService) {
-        this.templateService = templateService;
+    private final RenderProfiler renderProfiler;
+
+    public MemoryTemplateResolver(TemplateVersionRegistry templateVersionRegistry, RenderProfiler renderProfiler) {
+        this.templateVersionRegistry = templateVersionRegistry;
+        this.renderProfiler = renderProfiler;
     }
 
     public void setCacheable(boolean cacheable) {
@@ -94,12 +99,32 @@ public class MemoryTemplateResolver implements ITemplateResolver {
     public TemplateResolution resolveTemplate(IEngineConfiguration iEngineConfiguration,
                                               String ownerTemplate, String templateName,
                                               Map<String, Object> map) {
-        final Optional<Template> templateOp = templateService.findByName(templateName);
+        if(map != null && map.get(TemplateCompiler.CANDIDATE_ATTRIBUTE) != null) {
+            return resolveCandidate(templateName, (Template) map.get(TemplateCompiler.CANDIDATE_ATTRIBUTE));
+        }
+        // 先取版本号再取模板，两次读取之间模板发生变更时缓存会在下次使用时失效，不会一直使用旧的模板
+        final long version = templateVersionRegistry.getVersion(templateName);
+        final Optional<Template> templateOp = templateVersionRegistry.findByName(templateName);
         if (templateOp.isPresent()) {
             final Template template = templateOp.get();
-            return new TemplateResolution(new MemoryTemplateResource(template),
-                    TemplateMode.HTML, AlwaysValidCacheEntryValidity.INSTANCE);
+            final ICacheEntryValidity validity = cacheable
+                    ? new TemplateVersionCacheEntryValidity(templateVersionRegistry, templateName, version)
+                    : NonCacheableCacheEntryValidity.INSTANCE;
+            return new TemplateResolution(new MemoryTemplateResource(template, renderProfiler), templateMode, validity);
         }
         return null;
     }
+
+    /**
+     * 校验待保存的模板时，同名模板使用待保存的内容，其他模板（引用的片段）从注册表中读取，都不缓存
+     */
+    private TemplateResolution resolveCandidate(String templateName, Template candidate) {
+        final Template template = templateName.equals(candidate.getName())
+                ? candidate : templateVersionRegistry.findByName(templateName).orElse(null);
+        if(template == null) {
+            return null;
+        }
+        return new TemplateResolution(new MemoryTemplateResource(template), templateMode,
+                NonCacheableCacheEntryValidity.INSTANCE);
+    }
 }
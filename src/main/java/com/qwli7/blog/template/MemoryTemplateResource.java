@@ -1,5 +1,6 @@
 package com.qwli7.blog.template;
 
+import com.qwli7.blog.component.RenderProfiler;
 import com.qwli7.blog.entity.Template;
 import org.thymeleaf.templateresource.ITemplateResource;
 
@@ -16,8 +17,15 @@ public class MemoryTemplateResource implements ITemplateResource {
 
     private final Template template;
 
+    private final RenderProfiler renderProfiler;
+
     public MemoryTemplateResource(Template template) {
+        this(template, null);
+    }
+
+    public MemoryTemplateResource(Template template, RenderProfiler renderProfiler) {
         this.template = template;
+        this.renderProfiler = renderProfiler;
     }
 
     @Override
@@ -37,7 +45,18 @@ public class MemoryTemplateResource implements ITemplateResource {
 
     @Override
     public Reader reader() throws IOException {
-        return new StringReader(template.getContent());
+        if(renderProfiler == null) {
+            return new StringReader(template.getContent());
+        }
+        // 解析器读取完模板之后关闭 reader，从打开到关闭的时间即为解析耗时
+        final long start = System.nanoTime();
+        return new StringReader(template.getContent()) {
+            @Override
+            public void close() {
+                super.close();
+                renderProfiler.recordParse(template.getName(), System.nanoTime() - start);
+            }
+        };
     }
 
     @Override
@@ -0,0 +1,57 @@
+package com.qwli7.blog.template;
+
+import com.qwli7.blog.component.RenderProfiler;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.model.ITemplateEnd;
+import org.thymeleaf.model.ITemplateStart;
+import org.thymeleaf.processor.templateboundaries.AbstractTemplateBoundariesProcessor;
+import org.thymeleaf.processor.templateboundaries.ITemplateBoundariesStructureHandler;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 统计模板渲染耗时
+ * 引入的片段同样会触发模板的开始和结束，只在最外层的模板结束时记录
+ * @author liqiwen
+ * @since 2.5
+ */
+public class RenderProfilingProcessor extends AbstractTemplateBoundariesProcessor {
+
+    private static final ThreadLocal<Deque<Long>> START_HOLDER = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final RenderProfiler renderProfiler;
+
+    public RenderProfilingProcessor(RenderProfiler renderProfiler) {
+        super(TemplateMode.HTML, 0);
+        this.renderProfiler = renderProfiler;
+    }
+
+    @Override
+    public void doProcessTemplateStart(ITemplateContext context, ITemplateStart templateStart,
+                                       ITemplateBoundariesStructureHandler structureHandler) {
+        if(TemplateCompiler.isDryRun(context)) {
+            return;
+        }
+        final Deque<Long> starts = START_HOLDER.get();
+        if(context.getTemplateStack().size() == 1) {
+            // 上一次渲染出错时没有触发模板结束
+            starts.clear();
+        }
+        starts.push(System.nanoTime());
+    }
+
+    @Override
+    public void doProcessTemplateEnd(ITemplateContext context, ITemplateEnd templateEnd,
+                                     ITemplateBoundariesStructureHandler structureHandler) {
+        final Deque<Long> starts = START_HOLDER.get();
+        if(TemplateCompiler.isDryRun(context) || starts.isEmpty()) {
+            return;
+        }
+        final long start = starts.pop();
+        if(starts.isEmpty()) {
+            renderProfiler.recordRender(context.getTemplateData().getTemplate(), System.nanoTime() - start);
+        }
+    }
+}
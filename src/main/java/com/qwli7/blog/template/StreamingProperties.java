@@ -0,0 +1,81 @@
+package com.qwli7.blog.template;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 流式渲染配置
+ * 流式渲染的模板边渲染边输出，不在内存中保存完整的页面
+ * @author liqiwen
+ * @since 2.5
+ */
+@Configuration
+@ConfigurationProperties(prefix = "blog.template.streaming")
+public class StreamingProperties {
+
+    /**
+     * 是否开启流式渲染
+     */
+    private boolean enabled = true;
+
+    /**
+     * 流式渲染的模板名称，通常是很长的归档、列表页面
+     */
+    private List<String> templates = new ArrayList<>(Collections.singletonList("moments"));
+
+    /**
+     * 响应缓冲区大小，超过后立即输出
+     */
+    private DataSize bufferSize = DataSize.ofKilobytes(8);
+
+    /**
+     * 流式渲染的页面放入页面缓存的最大大小，超过后不缓存
+     */
+    private DataSize maxCacheableSize = DataSize.ofMegabytes(1);
+
+    /**
+     * 模板是否流式渲染
+     * @param templateName templateName
+     * @return boolean
+     */
+    public boolean isStreaming(String templateName) {
+        return enabled && templates.contains(templateName);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public List<String> getTemplates() {
+        return templates;
+    }
+
+    public void setTemplates(List<String> templates) {
+        this.templates = templates;
+    }
+
+    public DataSize getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(DataSize bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public DataSize getMaxCacheableSize() {
+        return maxCacheableSize;
+    }
+
+    public void setMaxCacheableSize(DataSize maxCacheableSize) {
+        this.maxCacheableSize = maxCacheableSize;
+    }
+}
@@ -0,0 +1,175 @@
+package com.qwli7.blog.template;
+
+import com.qwli7.blog.entity.Template;
+import com.qwli7.blog.exception.LogicException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.exceptions.TemplateEngineException;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 模板编译
+ * 1. 保存模板之前使用空的上下文试运行一次，解析失败、表达式错误、引用的片段不存在时拒绝保存
+ * 2. 模板变更提交之后以及启动完成后预先解析模板，放入 Thymeleaf 的模板缓存，访问时不需要再解析
+ * <p>
+ * 试运行时 data 标签不查询数据，片段缓存和渲染统计也不生效，
+ * 因为缺少数据导致的表达式求值错误不认为是模板错误，由 {@link DryRunStandardDialect} 记录后继续处理
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class TemplateCompiler {
+
+    /**
+     * 试运行时设置该变量，值为求值失败的表达式列表
+     */
+    public static final String DRY_RUN_VARIABLE = "blogTemplateDryRun";
+
+    /**
+     * 试运行时放在模板解析属性中的待保存模板，MemoryTemplateResolver 优先使用该模板并且不缓存
+     */
+    public static final String CANDIDATE_ATTRIBUTE = TemplateCompiler.class.getName() + ".CANDIDATE";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final TemplateVersionRegistry templateVersionRegistry;
+
+    private final ApplicationContext applicationContext;
+
+    public TemplateCompiler(SpringTemplateEngine templateEngine, TemplateVersionRegistry templateVersionRegistry,
+                            ApplicationContext applicationContext) {
+        this.templateEngine = templateEngine;
+        this.templateVersionRegistry = templateVersionRegistry;
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * 是否是试运行
+     * @param context context
+     * @return boolean
+     */
+    public static boolean isDryRun(ITemplateContext context) {
+        return context.containsVariable(DRY_RUN_VARIABLE);
+    }
+
+    /**
+     * 校验待保存的模板
+     * @param template template
+     * @throws LogicException 模板有错误
+     */
+    public void validate(Template template) {
+        final TemplateSpec templateSpec = new TemplateSpec(template.getName(), null, TemplateMode.HTML,
+                Collections.singletonMap(CANDIDATE_ATTRIBUTE, template));
+        final List<String> failures = new ArrayList<>();
+        try {
+            templateEngine.process(templateSpec, createContext(failures), NullWriter.INSTANCE);
+        } catch (TemplateEngineException ex) {
+            logger.warn("method<validate> 模板[{}]校验失败: [{}]", template.getName(), ex.getMessage());
+            throw new LogicException("template.invalid", "模板错误: " + ex.getMessage());
+        } finally {
+            clearContext();
+        }
+        if(!failures.isEmpty()) {
+            logger.debug("method<validate> 模板[{}]试运行时缺少数据的表达式: {}", template.getName(), failures);
+        }
+    }
+
+    /**
+     * 预先解析模板，放入模板缓存
+     * @param templateName templateName
+     */
+    public void warm(String templateName) {
+        if(!templateVersionRegistry.findByName(templateName).isPresent()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            // 与页面渲染使用相同的缓存 key，模板在处理之前就已经解析并放入缓存，处理失败不影响预热
+            templateEngine.process(templateName, createContext(new ArrayList<>()), NullWriter.INSTANCE);
+        } catch (TemplateEngineException ex) {
+            logger.debug("method<warm> 模板[{}]试运行失败: [{}]", templateName, ex.getMessage());
+        } finally {
+            clearContext();
+        }
+        logger.info("method<warm> 模板[{}]预热完成，耗时[{}]ms", templateName, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 启动完成后预热所有启用的模板
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmAll() {
+        for(Template template: templateVersionRegistry.getEnabledTemplates()) {
+            warm(template.getName());
+        }
+    }
+
+    private IContext createContext(List<String> failures) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put(DRY_RUN_VARIABLE, failures);
+        variables.put(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(applicationContext, null));
+        final ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if(requestAttributes == null || requestAttributes.getResponse() == null) {
+            return new Context(Locale.getDefault(), variables);
+        }
+        // 链接表达式需要 web 上下文
+        final HttpServletRequest request = requestAttributes.getRequest();
+        return new WebContext(request, requestAttributes.getResponse(), request.getServletContext(),
+                request.getLocale(), variables);
+    }
+
+    /**
+     * web 上下文中的变量保存在 request 中，试运行结束后移除
+     */
+    private void clearContext() {
+        final ServletRequestAttributes requestAttributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
+        if(requestAttributes == null) {
+            return;
+        }
+        final HttpServletRequest request = requestAttributes.getRequest();
+        request.removeAttribute(DRY_RUN_VARIABLE);
+        request.removeAttribute(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME);
+    }
+
+    private static final class NullWriter extends Writer {
+
+        private static final NullWriter INSTANCE = new NullWriter();
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
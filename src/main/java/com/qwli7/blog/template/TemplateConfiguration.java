@@ -1,10 +1,14 @@
 package com.qwli7.blog.template;
 
+import com.qwli7.blog.component.ContentVersions;
+import com.qwli7.blog.component.RenderProfiler;
 import com.qwli7.blog.service.ArticleService;
 import com.qwli7.blog.service.Markdown2Html;
 import com.qwli7.blog.service.MomentService;
 import com.qwli7.blog.template.data.*;
 import com.qwli7.blog.template.dialect.ExtStandardExpressionDialect;
+import com.qwli7.blog.template.fragment.FragmentCache;
+import com.qwli7.blog.template.fragment.FragmentCacheAttributeProcessor;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -51,25 +55,30 @@ public class TemplateConfiguration {
     }
 
     @Bean
-    public TemplateHandlerAdapter templateHandlerAdapter() {
-        return new TemplateHandlerAdapter();
+    public TemplateHandlerAdapter templateHandlerAdapter(TemplateService templateService, ContentVersions contentVersions,
+                                                         DataPrefetcher dataPrefetcher,
+                                                         StreamingProperties streamingProperties) {
+        return new TemplateHandlerAdapter(templateService, contentVersions, dataPrefetcher, streamingProperties);
     }
 
 
     @Bean
     public SpringTemplateEngine templateEngine(Markdown2Html markdown2Html,
                                                ApplicationContext applicationContext,
-                                               TemplateService templateService) {
+                                               TemplateVersionRegistry templateVersionRegistry,
+                                               RenderProfiler renderProfiler) {
 
         final ITemplateResolver iTemplateResolver = templateResolver();
         SpringTemplateEngine springTemplateEngine = new SpringTemplateEngine();
 
-        final ITemplateResolver memoryTemplateResolver = memoryTemplateResolver(templateService);
+        final ITemplateResolver memoryTemplateResolver = memoryTemplateResolver(templateVersionRegistry, renderProfiler);
 
         Set<ITemplateResolver> templateResolvers = new HashSet<>();
         templateResolvers.add(iTemplateResolver);
         templateResolvers.add(memoryTemplateResolver);
         springTemplateEngine.setTemplateResolvers(templateResolvers);
+        // 替换默认的 SpringStandardDialect，试运行时表达式求值失败不中断处理
+        springTemplateEngine.setDialect(new DryRunStandardDialect());
         springTemplateEngine.setAdditionalDialects(createDialects(applicationContext, markdown2Html));
         springTemplateEngine.setEnableSpringELCompiler(true);
         return springTemplateEngine;
@@ -88,6 +97,19 @@ public class TemplateConfiguration {
                 return processors;
             }
         });
+        // <div blog:cache="sidebar" blog:ttl="60"> 片段缓存，以及渲染耗时统计
+        dialectSet.add(new AbstractProcessorDialect("blog", "blog", StandardDialect.PROCESSOR_PRECEDENCE) {
+            @Override
+            public Set<IProcessor> getProcessors(String dialectPrefix) {
+                final RenderProfiler renderProfiler = applicationContext.getBean(RenderProfiler.class);
+                Set<IProcessor> processors = new HashSet<>();
+                processors.add(new FragmentCacheAttributeProcessor(dialectPrefix,
+                        applicationContext.getBean(FragmentCache.class),
+                        applicationContext.getBean(TemplateVersionRegistry.class), renderProfiler));
+                processors.add(new RenderProfilingProcessor(renderProfiler));
+                return processors;
+            }
+        });
 
         return dialectSet;
     }
@@ -108,8 +130,9 @@ public class TemplateConfiguration {
     }
 
     @Bean
-    public ITemplateResolver memoryTemplateResolver(TemplateService templateService) {
-        MemoryTemplateResolver templateResolver = new MemoryTemplateResolver(templateService);
+    public ITemplateResolver memoryTemplateResolver(TemplateVersionRegistry templateVersionRegistry,
+                                                    RenderProfiler renderProfiler) {
+        MemoryTemplateResolver templateResolver = new MemoryTemplateResolver(templateVersionRegistry, renderProfiler);
         templateResolver.setOrder(Ordered.LOWEST_PRECEDENCE-10);
         templateResolver.setTemplateMode(TemplateMode.HTML);
         templateResolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
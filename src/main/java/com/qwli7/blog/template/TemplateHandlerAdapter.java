@@ -1,6 +1,12 @@
 package com.qwli7.blog.template;
 
+import com.qwli7.blog.BlogContext;
+import com.qwli7.blog.component.ContentVersions;
+import com.qwli7.blog.template.data.DataPrefetcher;
+import com.qwli7.blog.web.cache.PageCacheFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.servlet.HandlerAdapter;
 import org.springframework.web.servlet.HandlerMapping;
 import org.springframework.web.servlet.ModelAndView;
@@ -15,6 +21,28 @@ import java.util.Map;
  * 功能：TemplateHandlerAdapter
  **/
 public class TemplateHandlerAdapter implements HandlerAdapter, Ordered {
+
+    /**
+     * 流式渲染的模板设置该属性，data 标签的数据在第一次使用时才获取
+     */
+    public static final String STREAMING_ATTRIBUTE = TemplateHandlerAdapter.class.getName() + ".STREAMING";
+
+    private final TemplateService templateService;
+
+    private final ContentVersions contentVersions;
+
+    private final DataPrefetcher dataPrefetcher;
+
+    private final StreamingProperties streamingProperties;
+
+    public TemplateHandlerAdapter(TemplateService templateService, ContentVersions contentVersions,
+                                  DataPrefetcher dataPrefetcher, StreamingProperties streamingProperties) {
+        this.templateService = templateService;
+        this.contentVersions = contentVersions;
+        this.dataPrefetcher = dataPrefetcher;
+        this.streamingProperties = streamingProperties;
+    }
+
     @Override
     public boolean supports(Object handler) {
         return handler instanceof String;
@@ -25,12 +53,38 @@ public class TemplateHandlerAdapter implements HandlerAdapter, Ordered {
     public ModelAndView handle(HttpServletRequest request, HttpServletResponse response,
                                Object handler) throws Exception {
         final Map<String, Object> pathVariables = (Map<String, Object>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if(BlogContext.isAuthenticated()) {
+            // 登录后看到的页面不能被浏览器保存，否则退出登录之后可能会因为 304 看到登录时的页面
+            response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+        } else {
+            request.setAttribute(PageCacheFilter.CACHEABLE_ATTRIBUTE, Boolean.TRUE);
+        }
+        if(streamingProperties.isStreaming(handler.toString())) {
+            // 缓冲区写满后立即输出，页面头部不需要等待数据查询完成
+            response.setBufferSize((int) streamingProperties.getBufferSize().toBytes());
+            request.setAttribute(STREAMING_ATTRIBUTE, Boolean.TRUE);
+        }
+        // 渲染之前并行查询模板中 data 标签的数据
+        dataPrefetcher.prefetch(request, handler.toString(), pathVariables);
         return new ModelAndView(handler.toString()).addAllObjects(pathVariables);
     }
 
+    /**
+     * 页面最后修改时间
+     * 模板页面可能展示任意模块的内容，取所有模块的最后变更时间和模板自身的修改时间中较大的一个，
+     * DispatcherServlet 会在渲染之前据此返回 304
+     * @param request request
+     * @param handler 模板名称
+     * @return long 登录时返回 -1，不做协商缓存
+     */
     @Override
     public long getLastModified(HttpServletRequest request, Object handler) {
-        return -1;
+        if(BlogContext.isAuthenticated()) {
+            return -1;
+        }
+        final long templateModifyAt = templateService.findByName(handler.toString())
+                .map(e -> ContentVersions.toMillis(e.getModifyAt())).orElse(-1L);
+        return Math.max(contentVersions.lastModified(), templateModifyAt);
     }
 
     @Override
@@ -24,6 +24,14 @@ public enum TemplateNameEnum {
 
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
     public static Optional<TemplateNameEnum> getTemplateNameEnumByName(String nameWithoutExt) {
         return Arrays.stream(TemplateNameEnum.values()).filter(e-> nameWithoutExt.equalsIgnoreCase(e.name)).findAny();
     }
@@ -0,0 +1,234 @@
+package com.qwli7.blog.template;
+
+import com.qwli7.blog.entity.Template;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 模板路由表
+ * 启动和模板变更时根据启用的模板预先编译，之后只读，变更时整体替换
+ * <p>
+ * pattern 按照 / 拆分成段组成一棵树：
+ * 1. 普通的段通过 HashMap 直接查找
+ * 2. 整段为 {name} 的变量段匹配任意一段，优先级低于普通的段
+ * 3. 包含 *、?、** 或者正则约束等的 pattern 无法放入树中，树中没有匹配时再逐个用 AntPathMatcher 匹配
+ * @author liqiwen
+ * @since 2.5
+ */
+public final class TemplateRouteTable {
+
+    private static final String SEPARATOR = "/";
+
+    private static final Pattern VARIABLE_SEGMENT = Pattern.compile("^\\{([^{}:]+)}$");
+
+    private static final TemplateRouteTable EMPTY = new TemplateRouteTable(Collections.emptyList());
+
+    private final AntPathMatcher antPathMatcher = new AntPathMatcher();
+
+    private final Node root = new Node();
+
+    /**
+     * 无法放入树中的路由，按照注册顺序匹配
+     */
+    private final List<Route> fallbackRoutes = new ArrayList<>();
+
+    private final Map<String, Template> templateMap = new LinkedHashMap<>();
+
+    private TemplateRouteTable(Collection<Template> templates) {
+        for(Template template: templates) {
+            final String pattern = template.getPattern();
+            if(StringUtils.isEmpty(pattern) || templateMap.containsKey(pattern)) {
+                continue;
+            }
+            templateMap.put(pattern, template);
+            if(!insert(template)) {
+                fallbackRoutes.add(new Route(template, Collections.emptyList()));
+            }
+        }
+    }
+
+    /**
+     * 编译路由表
+     * @param templates 启用的模板
+     * @return TemplateRouteTable
+     */
+    public static TemplateRouteTable of(Collection<Template> templates) {
+        return templates.isEmpty() ? EMPTY : new TemplateRouteTable(templates);
+    }
+
+    /**
+     * 空的路由表
+     * @return TemplateRouteTable
+     */
+    public static TemplateRouteTable empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 增加一个模板，返回新的路由表，当前路由表不变
+     * @param template template
+     * @return TemplateRouteTable
+     */
+    public TemplateRouteTable register(Template template) {
+        final Map<String, Template> templates = new LinkedHashMap<>(templateMap);
+        templates.put(template.getPattern(), template);
+        return new TemplateRouteTable(templates.values());
+    }
+
+    /**
+     * 匹配路径
+     * @param lookupPath lookupPath
+     * @return RouteMatch 没有匹配的模板时返回 null
+     */
+    public RouteMatch match(String lookupPath) {
+        final String[] segments = tokenize(lookupPath);
+        final boolean trailingSlash = lookupPath.length() > 1 && lookupPath.endsWith(SEPARATOR);
+        final String[] values = new String[segments.length];
+        final Route route = root.match(segments, 0, values, 0, trailingSlash);
+        if(route != null) {
+            final Map<String, String> variables = new LinkedHashMap<>();
+            for(int i = 0; i < route.variableNames.size(); i++) {
+                variables.put(route.variableNames.get(i), values[i]);
+            }
+            return new RouteMatch(route.template, variables);
+        }
+        for(Route fallback: fallbackRoutes) {
+            final String pattern = fallback.template.getPattern();
+            if(antPathMatcher.match(pattern, lookupPath)) {
+                return new RouteMatch(fallback.template, antPathMatcher.extractUriTemplateVariables(pattern, lookupPath));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 路由表中所有的 pattern
+     * @return List
+     */
+    public List<String> getPatterns() {
+        return Collections.unmodifiableList(new ArrayList<>(templateMap.keySet()));
+    }
+
+    private boolean insert(Template template) {
+        final String pattern = template.getPattern();
+        if(!pattern.startsWith(SEPARATOR)) {
+            return false;
+        }
+        Node node = root;
+        final List<String> variableNames = new ArrayList<>();
+        for(String segment: tokenize(pattern)) {
+            final Matcher matcher = VARIABLE_SEGMENT.matcher(segment);
+            if(matcher.matches()) {
+                variableNames.add(matcher.group(1));
+                if(node.variableChild == null) {
+                    node.variableChild = new Node();
+                }
+                node = node.variableChild;
+            } else if(isLiteral(segment)) {
+                node = node.literalChildren.computeIfAbsent(segment, k -> new Node());
+            } else {
+                return false;
+            }
+        }
+        final Route route = new Route(template, variableNames);
+        final boolean trailingSlash = pattern.length() > 1 && pattern.endsWith(SEPARATOR);
+        if(trailingSlash) {
+            if(node.trailingSlashRoute == null) {
+                node.trailingSlashRoute = route;
+            }
+        } else if(node.route == null) {
+            node.route = route;
+        }
+        return true;
+    }
+
+    private static boolean isLiteral(String segment) {
+        return segment.indexOf('*') == -1 && segment.indexOf('?') == -1
+                && segment.indexOf('{') == -1 && segment.indexOf('}') == -1;
+    }
+
+    /**
+     * 与 AntPathMatcher 的默认规则一致，忽略空的段并且不去除空白
+     */
+    private static String[] tokenize(String path) {
+        return StringUtils.tokenizeToStringArray(path, SEPARATOR, false, true);
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> literalChildren = new HashMap<>();
+
+        private Node variableChild;
+
+        private Route route;
+
+        private Route trailingSlashRoute;
+
+        private Route match(String[] segments, int index, String[] values, int valueIndex, boolean trailingSlash) {
+            if(index == segments.length) {
+                return trailingSlash ? trailingSlashRoute : route;
+            }
+            final Node literal = literalChildren.get(segments[index]);
+            if(literal != null) {
+                final Route matched = literal.match(segments, index + 1, values, valueIndex, trailingSlash);
+                if(matched != null) {
+                    return matched;
+                }
+            }
+            if(variableChild != null) {
+                values[valueIndex] = segments[index];
+                return variableChild.match(segments, index + 1, values, valueIndex + 1, trailingSlash);
+            }
+            return null;
+        }
+    }
+
+    private static final class Route {
+
+        private final Template template;
+
+        private final List<String> variableNames;
+
+        private Route(Template template, List<String> variableNames) {
+            this.template = template;
+            this.variableNames = variableNames;
+        }
+    }
+
+    /**
+     * 匹配结果
+     */
+    public static final class RouteMatch {
+
+        private final Template template;
+
+        private final Map<String, String> variables;
+
+        private RouteMatch(Template template, Map<String, String> variables) {
+            this.template = template;
+            this.variables = variables;
+        }
+
+        public Template getTemplate() {
+            return template;
+        }
+
+        /**
+         * 路径中的变量，可以修改
+         * @return Map
+         */
+        public Map<String, String> getVariables() {
+            return variables;
+        }
+    }
+}
@@ -52,6 +52,20 @@ public interface TemplateService {
      */
     List<String> getAllUrlPatterns();
 
+    /**
+     * 路径是否由模板处理
+     * @param lookupPath lookupPath
+     * @return boolean
+     */
+    boolean isTemplatePath(String lookupPath);
+
+    /**
+     * 获取处理该路径的模板名称
+     * @param lookupPath lookupPath
+     * @return Optional
+     */
+    Optional<String> matchTemplateName(String lookupPath);
+
     /**
      * 删除模板
      * @param id id
@@ -2,12 +2,14 @@ package com.qwli7.blog.template;
 
 import com.qwli7.blog.entity.Template;
 import com.qwli7.blog.entity.vo.TemplateQueryParam;
+import com.qwli7.blog.event.TemplateChangeEvent;
 import com.qwli7.blog.exception.LogicException;
 import com.qwli7.blog.mapper.TemplateMapper;
 import com.qwli7.blog.util.StreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.Ordered;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpMethod;
@@ -16,8 +18,7 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronization;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.util.*;
 import org.springframework.web.servlet.HandlerExecutionChain;
 import org.springframework.web.servlet.HandlerMapping;
@@ -29,8 +30,6 @@ import java.io.InputStream;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
 
 /**
  * 模板业务类
@@ -48,14 +47,27 @@ public class TemplateServiceImpl implements TemplateService, HandlerMapping, Ini
      */
     private final TemplateMapper templateMapper;
 
-    private List<String> urlPatterns = new CopyOnWriteArrayList<>();
+    /**
+     * 启用的模板编译成的路由表，模板变更后整体替换
+     */
+    private volatile TemplateRouteTable routeTable = TemplateRouteTable.empty();
 
     private final UrlPathHelper urlPathHelper = new UrlPathHelper();
 
     private final AntPathMatcher antPathMatcher = new AntPathMatcher();
 
-    public TemplateServiceImpl(TemplateMapper templateMapper) {
+    private final ApplicationEventPublisher publisher;
+
+    private final TemplateVersionRegistry templateVersionRegistry;
+
+    private final TemplateCompiler templateCompiler;
+
+    public TemplateServiceImpl(TemplateMapper templateMapper, ApplicationEventPublisher publisher,
+                               TemplateVersionRegistry templateVersionRegistry, TemplateCompiler templateCompiler) {
         this.templateMapper = templateMapper;
+        this.publisher = publisher;
+        this.templateVersionRegistry = templateVersionRegistry;
+        this.templateCompiler = templateCompiler;
     }
 
     @Override
@@ -73,27 +85,18 @@ public class TemplateServiceImpl implements TemplateService, HandlerMapping, Ini
     }
 
     private HandlerExecutionChain getHandlerExecutionChain(HttpServletRequest request, String lookupPath) {
-        for(String pattern : urlPatterns) {
-            if(antPathMatcher.match(pattern, lookupPath)) {
-                final Map<String, String[]> parameterMap = request.getParameterMap();
-                final Map<String, String> variablesMap = antPathMatcher.extractUriTemplateVariables(pattern, lookupPath);
-                for(String key: parameterMap.keySet()) {
-                    variablesMap.put(key, parameterMap.get(key)[0]);
-                }
-                request.setAttribute(URI_TEMPLATE_VARIABLES_ATTRIBUTE, variablesMap);
-                // /  /article/ewqew  /moments  /moment/2021
-                TemplateQueryParam queryParam = new TemplateQueryParam();
-                queryParam.setEnable(true);
-                final List<Template> allTemplates = getAllTemplates(queryParam);
-                if(!CollectionUtils.isEmpty(allTemplates)) {
-                    final Optional<Template> templateOp = allTemplates.stream().filter(e -> e.getPattern().equals(pattern)).findAny();
-                    if(templateOp.isPresent()) {
-                        return new HandlerExecutionChain(templateOp.get().getName());
-                    }
-                }
-            }
+        // /  /article/ewqew  /moments  /moment/2021
+        final TemplateRouteTable.RouteMatch routeMatch = routeTable.match(lookupPath);
+        if(routeMatch == null) {
+            return null;
+        }
+        final Map<String, String[]> parameterMap = request.getParameterMap();
+        final Map<String, String> variablesMap = routeMatch.getVariables();
+        for(String key: parameterMap.keySet()) {
+            variablesMap.put(key, parameterMap.get(key)[0]);
         }
-        return null;
+        request.setAttribute(URI_TEMPLATE_VARIABLES_ATTRIBUTE, variablesMap);
+        return new HandlerExecutionChain(routeMatch.getTemplate().getName());
     }
 
 
@@ -116,14 +119,42 @@ public class TemplateServiceImpl implements TemplateService, HandlerMapping, Ini
         if(!antPathMatcher.isPattern(pattern)) {
             throw new LogicException("invalid.pattern", "无效的 pattern");
         }
-        if(!urlPatterns.isEmpty()) {
-            urlPatterns.add(pattern);
+        synchronized (this) {
+            routeTable = routeTable.register(template);
         }
     }
 
     @Override
     public List<String> getAllUrlPatterns() {
-        return urlPatterns;
+        return routeTable.getPatterns();
+    }
+
+    @Override
+    public boolean isTemplatePath(String lookupPath) {
+        return routeTable.match(lookupPath) != null;
+    }
+
+    @Override
+    public Optional<String> matchTemplateName(String lookupPath) {
+        final TemplateRouteTable.RouteMatch routeMatch = routeTable.match(lookupPath);
+        return routeMatch == null ? Optional.empty() : Optional.of(routeMatch.getTemplate().getName());
+    }
+
+    /**
+     * 模板保存、更新或者删除并且提交之后重新加载模板版本并编译路由表，
+     * 之后预先解析变更的模板，访问时不需要再解析
+     * @param event event
+     */
+    @TransactionalEventListener(value = TemplateChangeEvent.class, fallbackExecution = true)
+    public void onTemplateChange(TemplateChangeEvent event) {
+        templateVersionRegistry.reload();
+        refreshRouteTable();
+        templateCompiler.warm(event.getTemplate().getName());
+    }
+
+    private synchronized void refreshRouteTable() {
+        routeTable = TemplateRouteTable.of(templateVersionRegistry.getEnabledTemplates());
+        logger.info("method<refreshRouteTable> 模板路由表已更新: [{}]", routeTable.getPatterns());
     }
 
     @Override
@@ -140,13 +171,13 @@ public class TemplateServiceImpl implements TemplateService, HandlerMapping, Ini
         if(enable) {
             throw new LogicException("template.enable", "激活状态下的模板不允许被删除");
         }
-        urlPatterns.remove(template.getPattern());
         templateMapper.deleteById(id);
+        publisher.publishEvent(new TemplateChangeEvent(this, template));
     }
 
     @Override
     public Optional<Template> findByName(String templateName) {
-        return templateMapper.findByName(templateName);
+        return templateVersionRegistry.findByName(templateName);
     }
 
     @Transactional(readOnly = true)
@@ -175,28 +206,48 @@ public class TemplateServiceImpl implements TemplateService, HandlerMapping, Ini
         if(allowComment == null) {
             template.setAllowComment(false);
         }
+        templateCompiler.validate(template);
         template.setCreateAt(LocalDateTime.now());
         template.setModifyAt(LocalDateTime.now());
         templateMapper.insert(template);
-
-        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
-            @Override
-            public void afterCommit() {
-                if(template.getEnable()) {
-                    registerTemplate(template);
-                }
-            }
-        });
+        publisher.publishEvent(new TemplateChangeEvent(this, template));
     }
 
     @Transactional(propagation = Propagation.REQUIRED)
     @Override
     public void update(Template template) {
-        final Optional<Template> templateOp = templateMapper.findById(template.getId());
-        if(!templateOp.isPresent()) {
-            throw new LogicException("template.notFound", "模板未找到");
+        final Template old = templateMapper.findById(template.getId()).orElseThrow(()
+                -> new LogicException("template.notFound", "模板未找到"));
+        final String name = template.getName();
+        if(!StringUtils.isEmpty(name) && !name.equals(old.getName())) {
+            if(templateMapper.findByName(name).isPresent()) {
+                throw new LogicException("name.already.used", "模板 name 已经使用");
+            }
+            old.setName(name);
         }
-
+        final String pattern = template.getPattern();
+        if(!StringUtils.isEmpty(pattern) && !pattern.equals(old.getPattern())) {
+            if(templateMapper.findByPattern(pattern).isPresent()) {
+                throw new LogicException("pattern.already.used", "模板 pattern 已经使用");
+            }
+            old.setPattern(pattern);
+        }
+        if(!StringUtils.isEmpty(template.getContent())) {
+            old.setContent(template.getContent());
+        }
+        if(template.getEnable() != null) {
+            old.setEnable(template.getEnable());
+        }
+        if(template.getAllowComment() != null) {
+            old.setAllowComment(template.getAllowComment());
+        }
+        if(template.getDescription() != null) {
+            old.setDescription(template.getDescription());
+        }
+        templateCompiler.validate(old);
+        old.setModifyAt(LocalDateTime.now());
+        templateMapper.update(old);
+        publisher.publishEvent(new TemplateChangeEvent(this, old));
     }
 
     @Override
@@ -248,11 +299,10 @@ public class TemplateServiceImpl implements TemplateService, HandlerMapping, Ini
                     throw new RuntimeException("默认模板加载失败，请确认默认模板是否存在");
                 }
                 templateMapper.batchInsert(defaultTemplateList);
-                urlPatterns = defaultTemplateList.stream().map(Template::getPattern).collect(Collectors.toList());
             }
-        } else {
-            urlPatterns = templates.stream().map(Template::getPattern).collect(Collectors.toList());
         }
+        templateVersionRegistry.reload();
+        refreshRouteTable();
     }
 
 
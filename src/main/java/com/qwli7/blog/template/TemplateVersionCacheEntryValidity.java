@@ -0,0 +1,35 @@
+package com.qwli7.blog.template;
+
+import org.thymeleaf.cache.ICacheEntryValidity;
+
+/**
+ * 基于模板版本号的缓存有效性
+ * 解析时记录模板的版本号，模板被修改或者删除之后缓存失效，其他模板的缓存不受影响
+ * @author liqiwen
+ * @since 2.5
+ */
+public class TemplateVersionCacheEntryValidity implements ICacheEntryValidity {
+
+    private final TemplateVersionRegistry templateVersionRegistry;
+
+    private final String templateName;
+
+    private final long version;
+
+    public TemplateVersionCacheEntryValidity(TemplateVersionRegistry templateVersionRegistry,
+                                             String templateName, long version) {
+        this.templateVersionRegistry = templateVersionRegistry;
+        this.templateName = templateName;
+        this.version = version;
+    }
+
+    @Override
+    public boolean isCacheable() {
+        return true;
+    }
+
+    @Override
+    public boolean isCacheStillValid() {
+        return templateVersionRegistry.getVersion(templateName) == version;
+    }
+}
@@ -0,0 +1,107 @@
+package com.qwli7.blog.template;
+
+import com.qwli7.blog.entity.Template;
+import com.qwli7.blog.entity.vo.TemplateQueryParam;
+import com.qwli7.blog.mapper.TemplateMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模板版本注册表
+ * 内存中保存所有模板及其版本号，模板内容变化时版本号递增，
+ * 模板解析直接从这里读取，Thymeleaf 缓存的模板通过版本号判断是否仍然有效
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class TemplateVersionRegistry {
+
+    private final TemplateMapper templateMapper;
+
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    /**
+     * 模板名称 -> 带版本的模板，变更时整体替换
+     */
+    private volatile Map<String, VersionedTemplate> templateMap = Collections.emptyMap();
+
+    public TemplateVersionRegistry(TemplateMapper templateMapper) {
+        this.templateMapper = templateMapper;
+    }
+
+    /**
+     * 从数据库重新加载所有模板，只有内容或者修改时间发生变化的模板版本号才会递增
+     */
+    public synchronized void reload() {
+        final Map<String, VersionedTemplate> oldTemplateMap = templateMap;
+        final Map<String, VersionedTemplate> newTemplateMap = new LinkedHashMap<>();
+        for(Template template: templateMapper.findAll(new TemplateQueryParam())) {
+            final VersionedTemplate old = oldTemplateMap.get(template.getName());
+            if(old != null && old.isSameAs(template)) {
+                newTemplateMap.put(template.getName(), new VersionedTemplate(template, old.version));
+            } else {
+                newTemplateMap.put(template.getName(), new VersionedTemplate(template, versionSequence.incrementAndGet()));
+            }
+        }
+        templateMap = newTemplateMap;
+    }
+
+    /**
+     * 根据名称获取模板
+     * @param templateName templateName
+     * @return Template
+     */
+    public Optional<Template> findByName(String templateName) {
+        final VersionedTemplate versionedTemplate = templateMap.get(templateName);
+        return versionedTemplate == null ? Optional.empty() : Optional.of(versionedTemplate.template);
+    }
+
+    /**
+     * 模板当前的版本号
+     * @param templateName templateName
+     * @return long 模板不存在时返回 -1
+     */
+    public long getVersion(String templateName) {
+        final VersionedTemplate versionedTemplate = templateMap.get(templateName);
+        return versionedTemplate == null ? -1 : versionedTemplate.version;
+    }
+
+    /**
+     * 所有启用的模板
+     * @return List
+     */
+    public List<Template> getEnabledTemplates() {
+        List<Template> templates = new ArrayList<>();
+        for(VersionedTemplate versionedTemplate: templateMap.values()) {
+            if(Boolean.TRUE.equals(versionedTemplate.template.getEnable())) {
+                templates.add(versionedTemplate.template);
+            }
+        }
+        return templates;
+    }
+
+    private static final class VersionedTemplate {
+
+        private final Template template;
+
+        private final long version;
+
+        private VersionedTemplate(Template template, long version) {
+            this.template = template;
+            this.version = version;
+        }
+
+        private boolean isSameAs(Template other) {
+            return Objects.equals(template.getContent(), other.getContent())
+                    && Objects.equals(template.getModifyAt(), other.getModifyAt());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.qwli7.blog.template.data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * data provider 缓存配置
+ * @author liqiwen
+ * @since 2.5
+ */
+@Configuration
+@ConfigurationProperties(prefix = "blog.data-cache")
+public class DataCacheProperties {
+
+    /**
+     * 是否缓存 data provider 的数据
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个 provider 最多缓存的条数
+     */
+    private long maxSize = 500;
+
+    /**
+     * provider 名称 -> 缓存时间，没有配置的 provider 不缓存
+     */
+    private Map<String, Duration> ttl = new HashMap<>();
+
+    public DataCacheProperties() {
+        ttl.put("categories", Duration.ofMinutes(10));
+        ttl.put("tag", Duration.ofMinutes(10));
+        ttl.put("latestMoment", Duration.ofMinutes(1));
+        ttl.put("articles", Duration.ofMinutes(1));
+        ttl.put("moments", Duration.ofMinutes(1));
+        ttl.put("articleNav", Duration.ofMinutes(1));
+        ttl.put("momentNav", Duration.ofMinutes(1));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Map<String, Duration> getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Map<String, Duration> ttl) {
+        this.ttl = ttl;
+    }
+}
@@ -0,0 +1,81 @@
+package com.qwli7.blog.template.data;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * data 标签预取配置
+ * @author liqiwen
+ * @since 2.5
+ */
+@Configuration
+@ConfigurationProperties(prefix = "blog.data-prefetch")
+public class DataPrefetchProperties {
+
+    /**
+     * 是否在渲染之前并行预取数据
+     */
+    private boolean enabled = true;
+
+    /**
+     * 预取的线程数
+     */
+    private int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 等待预取的任务数上限，超过后不再预取，由渲染时同步查询
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 渲染时等待预取结果的最长时间，超时后同步查询
+     */
+    private Duration waitTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 每个模板最多记录的 data 标签数
+     */
+    private int maxTagsPerTemplate = 32;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Duration getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    public void setWaitTimeout(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    public int getMaxTagsPerTemplate() {
+        return maxTagsPerTemplate;
+    }
+
+    public void setMaxTagsPerTemplate(int maxTagsPerTemplate) {
+        this.maxTagsPerTemplate = maxTagsPerTemplate;
+    }
+}
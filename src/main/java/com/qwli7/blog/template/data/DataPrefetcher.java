@@ -0,0 +1,261 @@
+package com.qwli7.blog.template.data;
+
+import com.qwli7.blog.BlogContext;
+import com.qwli7.blog.component.RenderProfiler;
+import com.qwli7.blog.template.TemplateVersionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * data 标签数据预取
+ * 1. 模板渲染时记录模板（包括引入的片段）中出现的 data 标签
+ * 2. 之后渲染同一个模板之前，在线程池中并行查询这些标签的数据
+ * 3. 渲染到 data 标签时直接使用预取的结果，同一个请求中相同的 provider 和参数只查询一次
+ * <p>
+ * 模板的版本发生变化后重新记录
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class DataPrefetcher implements DisposableBean {
+
+    private static final String FUTURES_ATTRIBUTE = DataPrefetcher.class.getName() + ".FUTURES";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final DataPrefetchProperties dataPrefetchProperties;
+
+    private final TemplateVersionRegistry templateVersionRegistry;
+
+    private final RenderProfiler renderProfiler;
+
+    private final ThreadPoolExecutor executor;
+
+    private volatile Map<String, AbstractDataProvider<?>> dataProviderMap = Collections.emptyMap();
+
+    /**
+     * 模板名称 -> 模板中的 data 标签
+     */
+    private final Map<String, TemplateDataTags> templateDataTagsMap = new ConcurrentHashMap<>();
+
+    public DataPrefetcher(DataPrefetchProperties dataPrefetchProperties, TemplateVersionRegistry templateVersionRegistry,
+                          RenderProfiler renderProfiler) {
+        this.dataPrefetchProperties = dataPrefetchProperties;
+        this.templateVersionRegistry = templateVersionRegistry;
+        this.renderProfiler = renderProfiler;
+        this.executor = new ThreadPoolExecutor(dataPrefetchProperties.getThreads(), dataPrefetchProperties.getThreads(),
+                60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(dataPrefetchProperties.getQueueCapacity()),
+                new DataPrefetchThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 注册 data provider
+     * @param dataProviderMap 名称 -> provider
+     */
+    public void registerDataProviders(Map<String, AbstractDataProvider<?>> dataProviderMap) {
+        this.dataProviderMap = Collections.unmodifiableMap(new HashMap<>(dataProviderMap));
+    }
+
+    /**
+     * 记录模板中的 data 标签
+     * @param templateName 最外层的模板名称
+     * @param dataProviderName provider 名称
+     * @param attributes 标签上的属性，不包括路径中的变量
+     */
+    public void record(String templateName, String dataProviderName, Map<String, String> attributes) {
+        if(!dataPrefetchProperties.isEnabled()) {
+            return;
+        }
+        final long version = templateVersionRegistry.getVersion(templateName);
+        TemplateDataTags templateDataTags = templateDataTagsMap.get(templateName);
+        if(templateDataTags == null || templateDataTags.version != version) {
+            templateDataTags = templateDataTagsMap.compute(templateName,
+                    (k, v) -> v == null || v.version != version ? new TemplateDataTags(version) : v);
+        }
+        if(templateDataTags.tags.size() < dataPrefetchProperties.getMaxTagsPerTemplate()) {
+            templateDataTags.tags.add(new DataTag(dataProviderName, new HashMap<>(attributes)));
+        }
+    }
+
+    /**
+     * 渲染之前预取模板中 data 标签的数据
+     * @param request request
+     * @param templateName 模板名称
+     * @param variables 路径中的变量和请求参数
+     */
+    public void prefetch(HttpServletRequest request, String templateName, Map<String, ?> variables) {
+        if(!dataPrefetchProperties.isEnabled()) {
+            return;
+        }
+        final TemplateDataTags templateDataTags = templateDataTagsMap.get(templateName);
+        if(templateDataTags == null || templateDataTags.version != templateVersionRegistry.getVersion(templateName)) {
+            return;
+        }
+        final Map<String, CompletableFuture<Object>> futures = getFutures(request);
+        for(DataTag dataTag: templateDataTags.tags) {
+            final AbstractDataProvider<?> dataProvider = dataProviderMap.get(dataTag.dataProviderName);
+            if(dataProvider == null) {
+                continue;
+            }
+            final Map<String, String> attributes = new HashMap<>(dataTag.attributes);
+            mergeVariables(attributes, variables);
+            final String key = buildKey(dataTag.dataProviderName, attributes);
+            if(futures.containsKey(key)) {
+                continue;
+            }
+            try {
+                futures.put(key, CompletableFuture.supplyAsync(
+                        BlogContext.<Object>wrap(() -> query(dataProvider, attributes)), executor));
+            } catch (RejectedExecutionException ex) {
+                logger.warn("method<prefetch> 预取队列已满，模板[{}]剩余的数据在渲染时查询", templateName);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 获取数据，有预取结果时使用预取结果，没有时同步查询，同一个请求中相同的查询只执行一次
+     * @param request request
+     * @param dataProviderName provider 名称
+     * @param dataProvider provider
+     * @param attributes 合并了路径变量之后的属性
+     * @return Object
+     */
+    public Object getData(HttpServletRequest request, String dataProviderName,
+                          AbstractDataProvider<?> dataProvider, Map<String, String> attributes) {
+        final Map<String, CompletableFuture<Object>> futures = getFutures(request);
+        final String key = buildKey(dataProviderName, attributes);
+        final CompletableFuture<Object> future = futures.get(key);
+        if(future != null) {
+            try {
+                return future.get(dataPrefetchProperties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                // 与同步查询时一样抛出 provider 的异常
+                if(ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                if(ex.getCause() instanceof Error) {
+                    throw (Error) ex.getCause();
+                }
+                throw new IllegalStateException(ex.getCause());
+            } catch (TimeoutException ex) {
+                logger.warn("method<getData> 等待预取[{}]超时，同步查询", key);
+            }
+        }
+        final Object data = query(dataProvider, attributes);
+        futures.put(key, CompletableFuture.completedFuture(data));
+        return data;
+    }
+
+    private Object query(AbstractDataProvider<?> dataProvider, Map<String, String> attributes) {
+        final long start = System.nanoTime();
+        try {
+            return dataProvider.queryData(attributes);
+        } finally {
+            renderProfiler.recordProvider(dataProvider.getName(), System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, CompletableFuture<Object>> getFutures(HttpServletRequest request) {
+        Map<String, CompletableFuture<Object>> futures = (Map<String, CompletableFuture<Object>>) request.getAttribute(FUTURES_ATTRIBUTE);
+        if(futures == null) {
+            futures = new ConcurrentHashMap<>();
+            request.setAttribute(FUTURES_ATTRIBUTE, futures);
+        }
+        return futures;
+    }
+
+    private void mergeVariables(Map<String, String> attributes, Map<String, ?> variables) {
+        if(variables == null) {
+            return;
+        }
+        for(String key: variables.keySet()) {
+            attributes.put(key, String.valueOf(variables.get(key)));
+        }
+    }
+
+    private String buildKey(String dataProviderName, Map<String, String> attributes) {
+        return dataProviderName + new TreeMap<>(attributes);
+    }
+
+    private static final class TemplateDataTags {
+
+        private final long version;
+
+        private final Set<DataTag> tags = ConcurrentHashMap.newKeySet();
+
+        private TemplateDataTags(long version) {
+            this.version = version;
+        }
+    }
+
+    private static final class DataTag {
+
+        private final String dataProviderName;
+
+        private final Map<String, String> attributes;
+
+        private DataTag(String dataProviderName, Map<String, String> attributes) {
+            this.dataProviderName = dataProviderName;
+            this.attributes = attributes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DataTag dataTag = (DataTag) o;
+            return dataProviderName.equals(dataTag.dataProviderName) && attributes.equals(dataTag.attributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dataProviderName, attributes);
+        }
+    }
+
+    private static final class DataPrefetchThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "data-prefetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.qwli7.blog.template.data;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.qwli7.blog.BlogContext;
+import com.qwli7.blog.component.ContentVersions;
+import com.qwli7.blog.component.RenderProfiler;
+import com.qwli7.blog.event.ArticleBatchDeleteEvent;
+import com.qwli7.blog.event.ArticleDeleteEvent;
+import com.qwli7.blog.event.ArticlePostEvent;
+import com.qwli7.blog.event.ArticleUpdateEvent;
+import com.qwli7.blog.event.CategoryChangeEvent;
+import com.qwli7.blog.event.CategoryDeleteEvent;
+import com.qwli7.blog.event.CheckCommentEvent;
+import com.qwli7.blog.event.CommentPostEvent;
+import com.qwli7.blog.event.MomentDeleteEvent;
+import com.qwli7.blog.event.MomentPostEvent;
+import com.qwli7.blog.event.MomentUpdateEvent;
+import com.qwli7.blog.event.TagChangeEvent;
+import com.qwli7.blog.event.TagDeleteEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * data provider 缓存
+ * 1. 只缓存匿名访问的数据，登录之后可能看到私密内容，直接查询
+ * 2. 以 provider 名称加排序后的属性作为 key，每个 provider 有各自的缓存时间
+ * 3. provider 依赖的模块发生变更并且事务提交之后清空该 provider 的缓存
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class DataProviderCache {
+
+    /**
+     * provider 名称 -> 依赖的模块
+     */
+    private static final Map<String, Set<String>> DEPENDENCIES;
+
+    static {
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        final Set<String> articleModules = modules(ContentVersions.ARTICLE, ContentVersions.CATEGORY,
+                ContentVersions.TAG, ContentVersions.COMMENT);
+        final Set<String> momentModules = modules(ContentVersions.MOMENT, ContentVersions.COMMENT);
+        dependencies.put("article", articleModules);
+        dependencies.put("articles", articleModules);
+        dependencies.put("articleNav", articleModules);
+        dependencies.put("moment", momentModules);
+        dependencies.put("moments", momentModules);
+        dependencies.put("latestMoment", momentModules);
+        dependencies.put("momentNav", momentModules);
+        dependencies.put("categories", modules(ContentVersions.CATEGORY, ContentVersions.ARTICLE));
+        dependencies.put("tag", modules(ContentVersions.TAG, ContentVersions.ARTICLE));
+        DEPENDENCIES = Collections.unmodifiableMap(dependencies);
+    }
+
+    private final DataCacheProperties dataCacheProperties;
+
+    private final RenderProfiler renderProfiler;
+
+    /**
+     * provider 名称 -> 带缓存的 provider
+     */
+    private final Map<String, CachingDataProvider<?>> cachingDataProviderMap = new ConcurrentHashMap<>();
+
+    public DataProviderCache(DataCacheProperties dataCacheProperties, RenderProfiler renderProfiler) {
+        this.dataCacheProperties = dataCacheProperties;
+        this.renderProfiler = renderProfiler;
+    }
+
+    /**
+     * 为配置了缓存时间的 provider 加上缓存
+     * @param dataProvider dataProvider
+     * @return AbstractDataProvider 没有配置缓存时间时返回原来的 provider
+     */
+    public AbstractDataProvider<?> decorate(AbstractDataProvider<?> dataProvider) {
+        final Duration ttl = dataCacheProperties.getTtl().get(dataProvider.getName());
+        if(!dataCacheProperties.isEnabled() || ttl == null || ttl.isZero() || ttl.isNegative()
+                || dataProvider instanceof CachingDataProvider) {
+            return dataProvider;
+        }
+        final CachingDataProvider<?> cachingDataProvider = cache(dataProvider, ttl, dataCacheProperties.getMaxSize(), renderProfiler);
+        cachingDataProviderMap.put(dataProvider.getName(), cachingDataProvider);
+        return cachingDataProvider;
+    }
+
+    /**
+     * 清空依赖该模块的 provider 的缓存
+     * @param module module
+     */
+    public void evict(String module) {
+        for(CachingDataProvider<?> cachingDataProvider: cachingDataProviderMap.values()) {
+            final Set<String> dependencies = DEPENDENCIES.get(cachingDataProvider.getName());
+            // 未知的 provider 任何变更都清空
+            if(dependencies == null || dependencies.contains(module)) {
+                cachingDataProvider.evictAll();
+            }
+        }
+    }
+
+    @TransactionalEventListener(value = {ArticlePostEvent.class, ArticleUpdateEvent.class, ArticleDeleteEvent.class,
+            ArticleBatchDeleteEvent.class}, fallbackExecution = true)
+    public void onArticleChange() {
+        evict(ContentVersions.ARTICLE);
+    }
+
+    @TransactionalEventListener(value = {MomentPostEvent.class, MomentUpdateEvent.class, MomentDeleteEvent.class},
+            fallbackExecution = true)
+    public void onMomentChange() {
+        evict(ContentVersions.MOMENT);
+    }
+
+    @TransactionalEventListener(value = {CommentPostEvent.class, CheckCommentEvent.class}, fallbackExecution = true)
+    public void onCommentChange() {
+        evict(ContentVersions.COMMENT);
+    }
+
+    @TransactionalEventListener(value = {CategoryChangeEvent.class, CategoryDeleteEvent.class}, fallbackExecution = true)
+    public void onCategoryChange() {
+        evict(ContentVersions.CATEGORY);
+    }
+
+    @TransactionalEventListener(value = {TagChangeEvent.class, TagDeleteEvent.class}, fallbackExecution = true)
+    public void onTagChange() {
+        evict(ContentVersions.TAG);
+    }
+
+    private static <T> CachingDataProvider<T> cache(AbstractDataProvider<T> dataProvider, Duration ttl, long maxSize,
+                                                    RenderProfiler renderProfiler) {
+        return new CachingDataProvider<>(dataProvider, ttl, maxSize, renderProfiler);
+    }
+
+    private static Set<String> modules(String... modules) {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(modules)));
+    }
+
+    /**
+     * 带缓存的 provider
+     * @param <T> T
+     */
+    private static final class CachingDataProvider<T> extends AbstractDataProvider<T> {
+
+        private final AbstractDataProvider<T> delegate;
+
+        private final Cache<String, T> cache;
+
+        private final RenderProfiler renderProfiler;
+
+        /**
+         * 每次清空缓存时加一并作为 key 的一部分，清空之前开始的查询结果不会再被读取
+         */
+        private final AtomicLong generation = new AtomicLong();
+
+        private CachingDataProvider(AbstractDataProvider<T> delegate, Duration ttl, long maxSize,
+                                    RenderProfiler renderProfiler) {
+            super(delegate.getName());
+            this.delegate = delegate;
+            this.renderProfiler = renderProfiler;
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maxSize)
+                    .expireAfterWrite(ttl.toMillis(), TimeUnit.MILLISECONDS)
+                    .build();
+        }
+
+        @Override
+        public T queryData(Map<String, String> attributeMap) {
+            if(BlogContext.isAuthenticated()) {
+                return delegate.queryData(attributeMap);
+            }
+            final String key = generation.get() + ":" + new TreeMap<>(attributeMap);
+            final boolean[] miss = {false};
+            final T data = cache.get(key, k -> {
+                miss[0] = true;
+                return delegate.queryData(attributeMap);
+            });
+            renderProfiler.recordCache(RenderProfiler.DATA_CACHE, getName(), !miss[0]);
+            return data;
+        }
+
+        private void evictAll() {
+            generation.incrementAndGet();
+            cache.invalidateAll();
+        }
+    }
+}
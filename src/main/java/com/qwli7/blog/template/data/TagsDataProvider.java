@@ -2,6 +2,7 @@ package com.qwli7.blog.template.data;
 
 import com.qwli7.blog.entity.Tag;
 import com.qwli7.blog.entity.dto.PageDto;
+import com.qwli7.blog.entity.vo.CommonQueryParam;
 import com.qwli7.blog.service.TagService;
 import org.springframework.stereotype.Component;
 
@@ -27,6 +28,22 @@ public class TagsDataProvider extends AbstractDataProvider<PageDto<Tag>> {
 
     @Override
     public PageDto<Tag> queryData(Map<String, String> attributeMap) {
-        return null;
+        CommonQueryParam queryParam = new CommonQueryParam();
+        int page;
+        try {
+            page = Integer.parseInt(attributeMap.get("page"));
+        } catch (NumberFormatException e){
+            page = 1;
+        }
+        int size;
+        try {
+            size = Integer.parseInt(attributeMap.get("size"));
+        } catch (NumberFormatException e) {
+            size = 20;
+        }
+        queryParam.setPage(Math.max(page, 1));
+        queryParam.setSize(size < 1 || size > 100 ? 20 : size);
+        queryParam.setQuery(attributeMap.getOrDefault("query", ""));
+        return tagService.findPage(queryParam);
     }
 }
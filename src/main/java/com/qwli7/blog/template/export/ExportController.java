@@ -0,0 +1,32 @@
+package com.qwli7.blog.template.export;
+
+import com.qwli7.blog.security.Authenticated;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 静态站点导出
+ * @author liqiwen
+ * @since 2.5
+ */
+@Authenticated
+@RestController
+@RequestMapping("api")
+public class ExportController {
+
+    private final StaticSiteExporter staticSiteExporter;
+
+    public ExportController(StaticSiteExporter staticSiteExporter) {
+        this.staticSiteExporter = staticSiteExporter;
+    }
+
+    /**
+     * 导出静态站点，只重新生成发生变化的文件
+     * @return ExportResult
+     */
+    @PostMapping("export")
+    public ExportResult export() {
+        return staticSiteExporter.export();
+    }
+}
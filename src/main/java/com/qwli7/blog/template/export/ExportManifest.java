@@ -0,0 +1,66 @@
+package com.qwli7.blog.template.export;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 导出清单
+ * 记录上一次导出的每个文件以及生成它时的指纹，下一次导出时指纹没有变化并且文件还在的直接跳过
+ * @author liqiwen
+ * @since 2.5
+ */
+public class ExportManifest {
+
+    /**
+     * 相对导出目录的路径 -> 条目
+     */
+    private Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public Map<String, Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(Map<String, Entry> entries) {
+        this.entries = new ConcurrentHashMap<>(entries);
+    }
+
+    public static class Entry {
+
+        /**
+         * 指纹，生成失败时为空，下一次一定会重新生成
+         */
+        private String fingerprint;
+
+        /**
+         * 页面中引用的上传文件
+         */
+        private List<String> references = new ArrayList<>();
+
+        public Entry() {
+            super();
+        }
+
+        public Entry(String fingerprint, List<String> references) {
+            this.fingerprint = fingerprint;
+            this.references = references;
+        }
+
+        public String getFingerprint() {
+            return fingerprint;
+        }
+
+        public void setFingerprint(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        public List<String> getReferences() {
+            return references;
+        }
+
+        public void setReferences(List<String> references) {
+            this.references = references;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.qwli7.blog.template.export;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 静态站点导出配置
+ * @author liqiwen
+ * @since 2.5
+ */
+@Configuration
+@ConfigurationProperties(prefix = "blog.export")
+public class ExportProperties {
+
+    /**
+     * 导出目录
+     */
+    private Path outputDirectory = Paths.get(System.getProperty("user.home")).resolve("blog/export");
+
+    /**
+     * 并行渲染的线程数
+     */
+    private int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 等待渲染的任务数上限，超过后由提交任务的线程自己渲染
+     */
+    private int queueCapacity = 64;
+
+    public Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public void setOutputDirectory(Path outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
@@ -0,0 +1,77 @@
+package com.qwli7.blog.template.export;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 静态站点导出结果
+ * @author liqiwen
+ * @since 2.5
+ */
+public class ExportResult implements Serializable {
+
+    /**
+     * 重新生成的文件数
+     */
+    private final AtomicInteger written = new AtomicInteger();
+
+    /**
+     * 没有变化而跳过的文件数
+     */
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    /**
+     * 生成失败的文件数
+     */
+    private final AtomicInteger failed = new AtomicInteger();
+
+    /**
+     * 已经不存在而删除的文件数
+     */
+    private final AtomicInteger deleted = new AtomicInteger();
+
+    /**
+     * 耗时(毫秒)
+     */
+    private long elapsed;
+
+    public int getWritten() {
+        return written.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public int getDeleted() {
+        return deleted.get();
+    }
+
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    void setElapsed(long elapsed) {
+        this.elapsed = elapsed;
+    }
+
+    void written() {
+        written.incrementAndGet();
+    }
+
+    void skipped() {
+        skipped.incrementAndGet();
+    }
+
+    void failed() {
+        failed.incrementAndGet();
+    }
+
+    void deleted() {
+        deleted.incrementAndGet();
+    }
+}
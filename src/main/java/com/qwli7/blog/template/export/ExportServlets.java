@@ -0,0 +1,116 @@
+package com.qwli7.blog.template.export;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 导出时使用的 request/response
+ * 模板和 data 标签依赖 WebContext，导出时没有真实的请求，这里只模拟一个匿名的 GET 请求，
+ * 只有属性是可写的，其他方法返回空值
+ * @author liqiwen
+ * @since 2.5
+ */
+final class ExportServlets {
+
+    private ExportServlets() {
+        super();
+    }
+
+    static HttpServletRequest newRequest(ServletContext servletContext, String path) {
+        final Map<String, Object> attributes = new HashMap<>();
+        return (HttpServletRequest) Proxy.newProxyInstance(ExportServlets.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getAttribute":
+                    return attributes.get((String) args[0]);
+                case "setAttribute":
+                    if(args[1] == null) {
+                        attributes.remove((String) args[0]);
+                    } else {
+                        attributes.put((String) args[0], args[1]);
+                    }
+                    return null;
+                case "removeAttribute":
+                    attributes.remove((String) args[0]);
+                    return null;
+                case "getAttributeNames":
+                    return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+                case "getMethod":
+                    return "GET";
+                case "getRequestURI":
+                case "getServletPath":
+                    return path;
+                case "getRequestURL":
+                    return new StringBuffer(path);
+                case "getContextPath":
+                    return "";
+                case "getParameterMap":
+                    return Collections.emptyMap();
+                case "getParameterNames":
+                case "getHeaders":
+                case "getHeaderNames":
+                    return Collections.emptyEnumeration();
+                case "getLocale":
+                    return Locale.getDefault();
+                case "getLocales":
+                    return Collections.enumeration(Collections.singletonList(Locale.getDefault()));
+                case "getCharacterEncoding":
+                    return StandardCharsets.UTF_8.name();
+                case "getServletContext":
+                    return servletContext;
+                default:
+                    return defaultValue(proxy, method.getName(), method.getReturnType(), args);
+            }
+        });
+    }
+
+    static HttpServletResponse newResponse() {
+        return (HttpServletResponse) Proxy.newProxyInstance(ExportServlets.class.getClassLoader(),
+                new Class<?>[] {HttpServletResponse.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "encodeURL":
+                case "encodeRedirectURL":
+                case "encodeUrl":
+                case "encodeRedirectUrl":
+                    return args[0];
+                case "getCharacterEncoding":
+                    return StandardCharsets.UTF_8.name();
+                case "getLocale":
+                    return Locale.getDefault();
+                default:
+                    return defaultValue(proxy, method.getName(), method.getReturnType(), args);
+            }
+        });
+    }
+
+    private static Object defaultValue(Object proxy, String methodName, Class<?> returnType, Object[] args) {
+        switch (methodName) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Export" + proxy.getClass().getInterfaces()[0].getSimpleName();
+            default:
+                break;
+        }
+        if(returnType == boolean.class) {
+            return false;
+        }
+        if(returnType == int.class) {
+            return 0;
+        }
+        if(returnType == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,641 @@
+package com.qwli7.blog.template.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.qwli7.blog.BlogContext;
+import com.qwli7.blog.BlogProperties;
+import com.qwli7.blog.component.NavigationIndex;
+import com.qwli7.blog.entity.Article;
+import com.qwli7.blog.entity.ArticleNav;
+import com.qwli7.blog.entity.ArticleStatus;
+import com.qwli7.blog.entity.Moment;
+import com.qwli7.blog.entity.MomentNav;
+import com.qwli7.blog.entity.Template;
+import com.qwli7.blog.entity.vo.ArticleQueryParam;
+import com.qwli7.blog.entity.vo.CommonQueryParam;
+import com.qwli7.blog.entity.vo.MomentQueryParam;
+import com.qwli7.blog.entity.vo.TemplateQueryParam;
+import com.qwli7.blog.exception.LogicException;
+import com.qwli7.blog.file.FileService;
+import com.qwli7.blog.mapper.ArticleMapper;
+import com.qwli7.blog.mapper.CategoryMapper;
+import com.qwli7.blog.mapper.MomentMapper;
+import com.qwli7.blog.mapper.TagMapper;
+import com.qwli7.blog.service.ArticleService;
+import com.qwli7.blog.service.CategoryService;
+import com.qwli7.blog.service.MomentService;
+import com.qwli7.blog.service.TagService;
+import com.qwli7.blog.template.TemplateNameEnum;
+import com.qwli7.blog.template.TemplateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.HandlerMapping;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring5.SpringTemplateEngine;
+import org.thymeleaf.spring5.expression.ThymeleafEvaluationContext;
+
+import javax.servlet.ServletContext;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 静态站点导出
+ * 将所有模板页面(首页、每篇文章、每条动态、动态归档)、JSON 数据以及页面中引用的上传文件导出到目录中，
+ * 用于部署到 github.io 等静态站点
+ * <p>
+ * 页面通过现有的 SpringTemplateEngine 在有界线程池中并行渲染；每个文件都会计算一个指纹(所有模板的修改时间 + 页面依赖的数据)，
+ * 记录在导出清单中，再次导出时只重新生成指纹发生变化的文件
+ * <p>
+ * 任务只在导出线程中以未登录的状态执行，队列满时提交任务的线程等待，不会在管理员的请求线程中渲染，
+ * 否则私有、未发布的内容会被导出到静态站点
+ * <p>
+ * 带查询参数的分页页面在静态站点中无法访问，只导出第一页
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class StaticSiteExporter {
+
+    private static final String MANIFEST_FILE = "export-manifest.json";
+
+    private static final String STATIC_LOCATION = "classpath:/static/";
+
+    private static final String INDEX_FILE = "index.html";
+
+    private static final Pattern URI_VARIABLE = Pattern.compile("\\{([^}/]+)}");
+
+    /**
+     * 队列满时等待队列中有空位
+     */
+    private static final RejectedExecutionHandler WAIT_POLICY = (runnable, executor) -> {
+        if(executor.isShutdown()) {
+            throw new RejectedExecutionException("export executor has been shut down");
+        }
+        try {
+            executor.getQueue().put(runnable);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(ex);
+        }
+    };
+
+    /**
+     * 页面中以 / 开头的链接，上传文件由 FileResourceHttpRequestHandler 在根路径下提供
+     */
+    private static final Pattern LOCAL_LINK = Pattern.compile("(?:src|href)=\"(/[^/\"][^\"]*)\"|url\\((/[^/)][^)]*)\\)");
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final ExportProperties exportProperties;
+
+    private final BlogProperties blogProperties;
+
+    private final SpringTemplateEngine templateEngine;
+
+    private final TemplateService templateService;
+
+    private final ArticleMapper articleMapper;
+
+    private final MomentMapper momentMapper;
+
+    private final CategoryMapper categoryMapper;
+
+    private final TagMapper tagMapper;
+
+    private final ArticleService articleService;
+
+    private final MomentService momentService;
+
+    private final CategoryService categoryService;
+
+    private final TagService tagService;
+
+    private final NavigationIndex navigationIndex;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectProvider<FileService> fileServiceProvider;
+
+    private final ServletContext servletContext;
+
+    private final ApplicationContext applicationContext;
+
+    private final ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public StaticSiteExporter(ExportProperties exportProperties, BlogProperties blogProperties,
+                              SpringTemplateEngine templateEngine, TemplateService templateService,
+                              ArticleMapper articleMapper, MomentMapper momentMapper,
+                              CategoryMapper categoryMapper, TagMapper tagMapper,
+                              ArticleService articleService, MomentService momentService,
+                              CategoryService categoryService, TagService tagService,
+                              NavigationIndex navigationIndex, ObjectMapper objectMapper,
+                              ObjectProvider<FileService> fileServiceProvider,
+                              ServletContext servletContext, ApplicationContext applicationContext) {
+        this.exportProperties = exportProperties;
+        this.blogProperties = blogProperties;
+        this.templateEngine = templateEngine;
+        this.templateService = templateService;
+        this.articleMapper = articleMapper;
+        this.momentMapper = momentMapper;
+        this.categoryMapper = categoryMapper;
+        this.tagMapper = tagMapper;
+        this.articleService = articleService;
+        this.momentService = momentService;
+        this.categoryService = categoryService;
+        this.tagService = tagService;
+        this.navigationIndex = navigationIndex;
+        this.objectMapper = objectMapper;
+        this.fileServiceProvider = fileServiceProvider;
+        this.servletContext = servletContext;
+        this.applicationContext = applicationContext;
+    }
+
+    /**
+     * 导出站点，同一时间只允许一个导出任务
+     * @return ExportResult
+     */
+    public ExportResult export() {
+        if(!running.compareAndSet(false, true)) {
+            throw new LogicException("export.running", "正在导出中，请稍后再试");
+        }
+        try {
+            return doExport();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ExportResult doExport() {
+        final long start = System.currentTimeMillis();
+        final Path outputDirectory = exportProperties.getOutputDirectory().toAbsolutePath().normalize();
+        final ExportManifest oldManifest = readManifest(outputDirectory);
+        final ExportManifest newManifest = new ExportManifest();
+        final ExportResult result = new ExportResult();
+        final ExportContext context = new ExportContext(outputDirectory, oldManifest, newManifest, result);
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(exportProperties.getThreads(), exportProperties.getThreads(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(exportProperties.getQueueCapacity()),
+                new ExportThreadFactory(), WAIT_POLICY);
+        try {
+            // 页面和 JSON
+            final List<Future<?>> futures = new ArrayList<>();
+            for(ExportTask task: createTasks()) {
+                futures.add(executor.submit(anonymous(() -> export(context, task))));
+            }
+            await(futures);
+
+            // 页面中引用的上传文件以及静态资源，渲染完成之后才知道所有的引用
+            futures.clear();
+            final FileService fileService = fileServiceProvider.getIfAvailable();
+            if(fileService != null) {
+                final Set<String> references = new LinkedHashSet<>();
+                newManifest.getEntries().values().forEach(e -> references.addAll(e.getReferences()));
+                for(String reference: references) {
+                    futures.add(executor.submit(anonymous(() -> copyReference(context, fileService, reference))));
+                }
+            }
+            final String staticRoot = resourcePatternResolver.getResource(STATIC_LOCATION).getURL().toString();
+            for(Resource resource: resourcePatternResolver.getResources(STATIC_LOCATION + "**")) {
+                futures.add(executor.submit(anonymous(() -> copyStatic(context, staticRoot, resource))));
+            }
+            await(futures);
+        } catch (IOException ex) {
+            throw new LogicException("export.failed", "导出失败: " + ex.getMessage());
+        } catch (RejectedExecutionException ex) {
+            throw new LogicException("export.interrupted", "导出被中断");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        deleteRemoved(context);
+        writeManifest(outputDirectory, newManifest);
+        result.setElapsed(System.currentTimeMillis() - start);
+        logger.info("method<doExport> 导出完成，生成[{}]，跳过[{}]，失败[{}]，删除[{}]，耗时[{}]ms", result.getWritten(),
+                result.getSkipped(), result.getFailed(), result.getDeleted(), result.getElapsed());
+        return result;
+    }
+
+    /**
+     * 根据启用的模板生成所有页面任务，以及 JSON 任务
+     * @return List
+     */
+    private List<ExportTask> createTasks() {
+        final List<Article> articles = articleMapper.findExportArticles(ArticleStatus.POST);
+        final List<Moment> moments = momentMapper.findExportMoments();
+
+        // 分类和标签会出现在几乎所有页面上，列表页则依赖所有的文章和动态
+        final StringBuilder taxonomy = new StringBuilder();
+        categoryMapper.findAll().forEach(e -> taxonomy.append(e.getId()).append(':').append(e.getName()).append(';'));
+        tagMapper.findAll().forEach(e -> taxonomy.append(e.getId()).append(':').append(e.getName()).append(';'));
+        final StringBuilder all = new StringBuilder(taxonomy);
+        articles.forEach(e -> all.append(fingerprint(e)).append(';'));
+        moments.forEach(e -> all.append(fingerprint(e)).append(';'));
+        final String taxonomyDigest = digest(taxonomy.toString());
+        final String allDigest = digest(all.toString());
+
+        // 模板之间可以通过片段互相引用(页头、页脚、侧边栏)，任何一个模板变化都可能影响所有页面
+        final StringBuilder templates = new StringBuilder();
+        templateService.getAllTemplates(new TemplateQueryParam()).stream()
+                .sorted(Comparator.comparing(Template::getName))
+                .forEach(e -> templates.append(e.getName()).append('@').append(e.getModifyAt()).append(';'));
+        final String templateVersion = digest(templates.toString());
+
+        final List<ExportTask> tasks = new ArrayList<>();
+        TemplateQueryParam queryParam = new TemplateQueryParam();
+        queryParam.setEnable(true);
+        for(Template template: templateService.getAllTemplates(queryParam)) {
+            final String pattern = template.getPattern();
+            final List<String> variables = uriVariables(pattern);
+            if(variables.isEmpty()) {
+                tasks.add(ExportTask.page(pattern, template.getName(), Collections.emptyMap(), templateVersion + '|' + allDigest));
+                continue;
+            }
+            final Optional<TemplateNameEnum> templateNameEnumOp = TemplateNameEnum.getTemplateNameEnumByName(template.getName());
+            if(variables.size() == 1 && templateNameEnumOp.orElse(null) == TemplateNameEnum.ARTICLE) {
+                for(Article article: articles) {
+                    final String idOrAlias = StringUtils.isEmpty(article.getAlias()) ? String.valueOf(article.getId()) : article.getAlias();
+                    final ArticleNav nav = navigationIndex.findArticleNav(article.getId());
+                    final String fingerprint = templateVersion + '|' + taxonomyDigest + '|' + fingerprint(article)
+                            + '|' + fingerprint(nav.getPrevArticle()) + '|' + fingerprint(nav.getNextArticle());
+                    tasks.add(ExportTask.page(expand(pattern, variables.get(0), idOrAlias), template.getName(),
+                            Collections.singletonMap(variables.get(0), idOrAlias), fingerprint));
+                }
+            } else if(variables.size() == 1 && templateNameEnumOp.orElse(null) == TemplateNameEnum.MOMENT) {
+                for(Moment moment: moments) {
+                    final String id = String.valueOf(moment.getId());
+                    final MomentNav nav = navigationIndex.findMomentNav(moment.getId());
+                    final String fingerprint = templateVersion + '|' + fingerprint(moment)
+                            + '|' + fingerprint(nav.getPrevMoment()) + '|' + fingerprint(nav.getNextMoment());
+                    tasks.add(ExportTask.page(expand(pattern, variables.get(0), id), template.getName(),
+                            Collections.singletonMap(variables.get(0), id), fingerprint));
+                }
+            } else {
+                logger.warn("method<createTasks> 模板[{}]的路径[{}]包含无法枚举的变量，跳过导出", template.getName(), pattern);
+            }
+        }
+
+        // JSON 数据，与接口返回的第一页一致
+        final int size = blogProperties.getDefaultPageSize();
+        tasks.add(ExportTask.json("api/articles.json", allDigest, () -> {
+            ArticleQueryParam articleQueryParam = new ArticleQueryParam();
+            articleQueryParam.setPage(1);
+            articleQueryParam.setSize(size);
+            return articleService.findPage(articleQueryParam);
+        }));
+        tasks.add(ExportTask.json("api/moments.json", allDigest, () -> {
+            MomentQueryParam momentQueryParam = new MomentQueryParam();
+            momentQueryParam.setOrderDesc(true);
+            momentQueryParam.setPage(1);
+            momentQueryParam.setSize(size);
+            return momentService.findPage(momentQueryParam);
+        }));
+        tasks.add(ExportTask.json("api/categories.json", taxonomyDigest, categoryService::findAll));
+        tasks.add(ExportTask.json("api/tags.json", allDigest, () -> {
+            CommonQueryParam commonQueryParam = new CommonQueryParam();
+            commonQueryParam.setPage(1);
+            commonQueryParam.setSize(size);
+            return tagService.findPage(commonQueryParam);
+        }));
+        return tasks;
+    }
+
+    /**
+     * 执行单个任务，指纹没有变化并且文件还在时跳过
+     */
+    private void export(ExportContext context, ExportTask task) {
+        final ExportManifest.Entry oldEntry = context.oldManifest.getEntries().get(task.outputPath);
+        final Path target = context.resolve(task.outputPath);
+        if(oldEntry != null && task.fingerprint.equals(oldEntry.getFingerprint()) && target != null && Files.exists(target)) {
+            context.newManifest.getEntries().put(task.outputPath, oldEntry);
+            context.result.skipped();
+            return;
+        }
+        try {
+            if(target == null) {
+                throw new IllegalArgumentException("invalid export path: " + task.outputPath);
+            }
+            final List<String> references;
+            if(task.templateName != null) {
+                final String html = render(task);
+                write(target, html.getBytes(StandardCharsets.UTF_8));
+                references = findReferences(html);
+            } else {
+                write(target, objectMapper.writeValueAsBytes(task.jsonSupplier.get()));
+                references = Collections.emptyList();
+            }
+            context.newManifest.getEntries().put(task.outputPath, new ExportManifest.Entry(task.fingerprint, references));
+            context.result.written();
+        } catch (Exception ex) {
+            logger.error("method<export> 导出[{}]失败: [{}]", task.outputPath, ex.getMessage(), ex);
+            // 保留原来的文件，清空指纹，下次导出时重试
+            context.newManifest.getEntries().put(task.outputPath, new ExportManifest.Entry(null,
+                    oldEntry == null ? Collections.emptyList() : oldEntry.getReferences()));
+            context.result.failed();
+        }
+    }
+
+    private String render(ExportTask task) {
+        final HttpServletRequest request = ExportServlets.newRequest(servletContext, task.urlPath);
+        final Map<String, Object> variables = new HashMap<>(task.variables);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE, variables);
+        final WebContext webContext = new WebContext(request, ExportServlets.newResponse(), servletContext,
+                request.getLocale(), variables);
+        webContext.setVariable(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(applicationContext, null));
+        return templateEngine.process(task.templateName, webContext);
+    }
+
+    private List<String> findReferences(String html) {
+        final Set<String> references = new LinkedHashSet<>();
+        final Matcher matcher = LOCAL_LINK.matcher(html);
+        while (matcher.find()) {
+            String link = matcher.group(1) == null ? matcher.group(2) : matcher.group(1);
+            final int queryIndex = link.indexOf('?');
+            if(queryIndex != -1) {
+                link = link.substring(0, queryIndex);
+            }
+            if(link.startsWith("/static/") || link.startsWith("/api/") || link.endsWith("/")) {
+                continue;
+            }
+            references.add(link.substring(1));
+        }
+        return new ArrayList<>(references);
+    }
+
+    /**
+     * 复制上传文件(包括缩略图)，不支持 webp 的浏览器也要能访问，按不支持 webp 处理
+     */
+    private void copyReference(ExportContext context, FileService fileService, String reference) {
+        final Optional<Resource> resourceOp;
+        try {
+            resourceOp = fileService.getProcessedFile(reference, false);
+        } catch (RuntimeException ex) {
+            logger.warn("method<copyReference> 获取文件[{}]失败: [{}]", reference, ex.getMessage());
+            return;
+        }
+        resourceOp.ifPresent(resource -> copy(context, reference, resource));
+    }
+
+    private void copyStatic(ExportContext context, String root, Resource resource) {
+        try {
+            final String url = resource.getURL().toString();
+            if(!url.startsWith(root) || url.endsWith("/") || !resource.isReadable()) {
+                return;
+            }
+            copy(context, "static/" + StringUtils.uriDecode(url.substring(root.length()), StandardCharsets.UTF_8), resource);
+        } catch (IOException ex) {
+            logger.warn("method<copyStatic> 复制静态资源[{}]失败: [{}]", resource, ex.getMessage());
+        }
+    }
+
+    private void copy(ExportContext context, String outputPath, Resource resource) {
+        final ExportManifest.Entry oldEntry = context.oldManifest.getEntries().get(outputPath);
+        final Path target = context.resolve(outputPath);
+        if(target == null) {
+            return;
+        }
+        try {
+            final String fingerprint = resource.contentLength() + "@" + lastModified(resource);
+            if(oldEntry != null && fingerprint.equals(oldEntry.getFingerprint()) && Files.exists(target)) {
+                context.newManifest.getEntries().put(outputPath, oldEntry);
+                context.result.skipped();
+                return;
+            }
+            Files.createDirectories(target.getParent());
+            final Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (InputStream in = resource.getInputStream()) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            context.newManifest.getEntries().put(outputPath, new ExportManifest.Entry(fingerprint, Collections.emptyList()));
+            context.result.written();
+        } catch (IOException ex) {
+            logger.error("method<copy> 复制[{}]失败: [{}]", outputPath, ex.getMessage(), ex);
+            // 保留原来的文件，清空指纹，下次导出时重试
+            context.newManifest.getEntries().put(outputPath, new ExportManifest.Entry(null, Collections.emptyList()));
+            context.result.failed();
+        }
+    }
+
+    /**
+     * 上一次导出过、这一次已经不存在的文件(文章被删除、模板被禁用等)需要删除
+     */
+    private void deleteRemoved(ExportContext context) {
+        for(String outputPath: context.oldManifest.getEntries().keySet()) {
+            if(context.newManifest.getEntries().containsKey(outputPath)) {
+                continue;
+            }
+            final Path target = context.resolve(outputPath);
+            try {
+                if(target != null && Files.deleteIfExists(target)) {
+                    context.result.deleted();
+                }
+            } catch (IOException ex) {
+                logger.warn("method<deleteRemoved> 删除[{}]失败: [{}]", outputPath, ex.getMessage());
+            }
+        }
+    }
+
+    private ExportManifest readManifest(Path outputDirectory) {
+        final Path manifest = outputDirectory.resolve(MANIFEST_FILE);
+        if(!Files.exists(manifest)) {
+            return new ExportManifest();
+        }
+        try {
+            return objectMapper.readValue(manifest.toFile(), ExportManifest.class);
+        } catch (IOException ex) {
+            logger.warn("method<readManifest> 读取导出清单失败，将全部重新导出: [{}]", ex.getMessage());
+            return new ExportManifest();
+        }
+    }
+
+    private void writeManifest(Path outputDirectory, ExportManifest manifest) {
+        try {
+            write(outputDirectory.resolve(MANIFEST_FILE), objectMapper.writeValueAsBytes(manifest));
+        } catch (IOException ex) {
+            throw new LogicException("export.manifest.failed", "写入导出清单失败: " + ex.getMessage());
+        }
+    }
+
+    private void write(Path target, byte[] bytes) throws IOException {
+        Files.createDirectories(target.getParent());
+        final Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, bytes);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void await(List<Future<?>> futures) {
+        for(Future<?> future: futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new LogicException("export.interrupted", "导出被中断");
+            } catch (ExecutionException ex) {
+                logger.error("method<await> 导出任务异常: [{}]", ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * 以未登录的状态执行任务
+     */
+    private static Runnable anonymous(Runnable runnable) {
+        return () -> {
+            BlogContext.setAuthenticated(false);
+            try {
+                runnable.run();
+            } finally {
+                BlogContext.clear();
+            }
+        };
+    }
+
+    private static List<String> uriVariables(String pattern) {
+        final List<String> variables = new ArrayList<>();
+        final Matcher matcher = URI_VARIABLE.matcher(pattern);
+        while (matcher.find()) {
+            variables.add(matcher.group(1));
+        }
+        return variables;
+    }
+
+    private static String expand(String pattern, String variable, String value) {
+        return pattern.replace("{" + variable + "}", value);
+    }
+
+    private static long lastModified(Resource resource) throws IOException {
+        // 上传文件的 Resource 没有修改时间，使用文件本身的修改时间
+        final long lastModified = resource.lastModified();
+        return lastModified > 0 ? lastModified : resource.getFile().lastModified();
+    }
+
+    private static String fingerprint(Article article) {
+        return article == null ? "" : article.getId() + ":" + article.getAlias() + ":" + article.getTitle()
+                + ":" + article.getComments() + ":" + article.getModifyAt();
+    }
+
+    private static String fingerprint(Moment moment) {
+        return moment == null ? "" : moment.getId() + ":" + moment.getComments() + ":" + moment.getModifyAt();
+    }
+
+    private static String digest(String value) {
+        return DigestUtils.md5DigestAsHex(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 一次导出的上下文
+     */
+    private static final class ExportContext {
+
+        private final Path outputDirectory;
+        private final ExportManifest oldManifest;
+        private final ExportManifest newManifest;
+        private final ExportResult result;
+
+        private ExportContext(Path outputDirectory, ExportManifest oldManifest, ExportManifest newManifest, ExportResult result) {
+            this.outputDirectory = outputDirectory;
+            this.oldManifest = oldManifest;
+            this.newManifest = newManifest;
+            this.result = result;
+        }
+
+        /**
+         * 输出路径转换为文件，超出导出目录的返回 null
+         */
+        private Path resolve(String outputPath) {
+            final Path target = outputDirectory.resolve(outputPath).normalize();
+            return target.startsWith(outputDirectory) && !target.equals(outputDirectory) ? target : null;
+        }
+    }
+
+    /**
+     * 导出任务，页面或者 JSON
+     */
+    private static final class ExportTask {
+
+        private final String outputPath;
+        private final String urlPath;
+        private final String templateName;
+        private final Map<String, String> variables;
+        private final String fingerprint;
+        private final Supplier<?> jsonSupplier;
+
+        private ExportTask(String outputPath, String urlPath, String templateName, Map<String, String> variables,
+                           String fingerprint, Supplier<?> jsonSupplier) {
+            this.outputPath = outputPath;
+            this.urlPath = urlPath;
+            this.templateName = templateName;
+            this.variables = variables;
+            this.fingerprint = fingerprint;
+            this.jsonSupplier = jsonSupplier;
+        }
+
+        /**
+         * 页面导出为 路径/index.html，静态站点访问 /article/xxx 时会返回 /article/xxx/index.html
+         */
+        private static ExportTask page(String urlPath, String templateName, Map<String, String> variables, String fingerprint) {
+            String outputPath = urlPath.startsWith("/") ? urlPath.substring(1) : urlPath;
+            outputPath = outputPath.isEmpty() || outputPath.endsWith("/") ? outputPath + INDEX_FILE : outputPath + "/" + INDEX_FILE;
+            return new ExportTask(outputPath, urlPath, templateName, variables, fingerprint, null);
+        }
+
+        private static ExportTask json(String outputPath, String fingerprint, Supplier<?> jsonSupplier) {
+            return new ExportTask(outputPath, "/" + outputPath, null, Collections.emptyMap(), fingerprint, jsonSupplier);
+        }
+    }
+
+    private static final class ExportThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            final Thread thread = new Thread(r, "static-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
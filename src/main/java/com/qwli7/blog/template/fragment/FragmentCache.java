@@ -0,0 +1,112 @@
+package com.qwli7.blog.template.fragment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.qwli7.blog.component.ContentVersions;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模板片段缓存
+ * 保存 blog:cache 标记的元素渲染后的 html，每个片段有各自的缓存时间，
+ * 片段依赖的模块（文章、动态、评论等）发生变更之后，通过 ContentVersions 中的版本判断片段失效
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class FragmentCache {
+
+    /**
+     * 缓存的最大字符数
+     */
+    private static final long MAX_WEIGHT = 8 * 1024 * 1024;
+
+    private final ContentVersions contentVersions;
+
+    private final Cache<String, Fragment> cache;
+
+    public FragmentCache(ContentVersions contentVersions) {
+        this.contentVersions = contentVersions;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(MAX_WEIGHT)
+                .weigher((String key, Fragment fragment) -> key.length() + fragment.html.length())
+                .expireAfter(new FragmentExpiry())
+                .build();
+    }
+
+    /**
+     * 获取片段，依赖的模块发生过变更时返回 null
+     * @param key key
+     * @return String
+     */
+    public String get(String key) {
+        final Fragment fragment = cache.getIfPresent(key);
+        if(fragment == null) {
+            return null;
+        }
+        if(contentVersions.lastModified(fragment.modules) != fragment.version) {
+            cache.invalidate(key);
+            return null;
+        }
+        return fragment.html;
+    }
+
+    /**
+     * 片段依赖的模块当前的版本，需要在渲染之前获取，渲染期间发生的变更会使片段失效
+     * @param modules modules
+     * @return long
+     */
+    public long version(String[] modules) {
+        return contentVersions.lastModified(modules);
+    }
+
+    /**
+     * 放入片段
+     * @param key key
+     * @param html 渲染后的 html
+     * @param ttlSeconds 缓存时间
+     * @param modules 依赖的模块
+     * @param version 渲染之前获取的版本
+     */
+    public void put(String key, String html, long ttlSeconds, String[] modules, long version) {
+        cache.put(key, new Fragment(html, TimeUnit.SECONDS.toNanos(ttlSeconds), modules, version));
+    }
+
+    private static final class Fragment {
+
+        private final String html;
+
+        private final long ttlNanos;
+
+        private final String[] modules;
+
+        private final long version;
+
+        private Fragment(String html, long ttlNanos, String[] modules, long version) {
+            this.html = html;
+            this.ttlNanos = ttlNanos;
+            this.modules = modules;
+            this.version = version;
+        }
+    }
+
+    private static final class FragmentExpiry implements Expiry<String, Fragment> {
+
+        @Override
+        public long expireAfterCreate(String key, Fragment fragment, long currentTime) {
+            return fragment.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Fragment fragment, long currentTime, long currentDuration) {
+            return fragment.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Fragment fragment, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
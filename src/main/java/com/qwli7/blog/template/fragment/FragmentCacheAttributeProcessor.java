@@ -0,0 +1,158 @@
+package com.qwli7.blog.template.fragment;
+
+import com.qwli7.blog.BlogContext;
+import com.qwli7.blog.component.ContentVersions;
+import com.qwli7.blog.component.RenderProfiler;
+import com.qwli7.blog.template.TemplateCompiler;
+import com.qwli7.blog.template.TemplateVersionRegistry;
+import org.springframework.util.StringUtils;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.model.IModel;
+import org.thymeleaf.model.IModelFactory;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.element.AbstractAttributeModelProcessor;
+import org.thymeleaf.processor.element.IElementModelStructureHandler;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import org.thymeleaf.templatemode.TemplateMode;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 片段缓存属性处理器
+ * <pre>
+ * &lt;aside blog:cache="sidebar" blog:ttl="60" blog:cache-tags="article,category"&gt;...&lt;/aside&gt;
+ * </pre>
+ * 1. blog:cache 为缓存的 key，可以是表达式，同一个模板中 key 相同的元素共享缓存
+ * 2. blog:ttl 为缓存时间（秒），默认 300 秒
+ * 3. blog:cache-tags 为片段依赖的模块，这些模块发生变更后片段失效，默认依赖所有模块
+ * <p>
+ * 登录之后看到的内容可能不同，不使用缓存
+ * @author liqiwen
+ * @since 2.5
+ */
+public class FragmentCacheAttributeProcessor extends AbstractAttributeModelProcessor {
+
+    private static final String ATTR_NAME = "cache";
+
+    private static final String TTL_ATTR_NAME = "ttl";
+
+    private static final String TAGS_ATTR_NAME = "cache-tags";
+
+    private static final long DEFAULT_TTL_SECONDS = 300;
+
+    /**
+     * 先于 th:* 属性执行，命中时整个元素都不需要再处理
+     */
+    private static final int PRECEDENCE = 10;
+
+    private final FragmentCache fragmentCache;
+
+    private final TemplateVersionRegistry templateVersionRegistry;
+
+    private final RenderProfiler renderProfiler;
+
+    public FragmentCacheAttributeProcessor(String dialectPrefix, FragmentCache fragmentCache,
+                                           TemplateVersionRegistry templateVersionRegistry,
+                                           RenderProfiler renderProfiler) {
+        super(TemplateMode.HTML, dialectPrefix, null, false, ATTR_NAME, true, PRECEDENCE, false);
+        this.fragmentCache = fragmentCache;
+        this.templateVersionRegistry = templateVersionRegistry;
+        this.renderProfiler = renderProfiler;
+    }
+
+    @Override
+    protected void doProcess(ITemplateContext context, IModel model, AttributeName attributeName,
+                             String attributeValue, IElementModelStructureHandler structureHandler) {
+        final IModelFactory modelFactory = context.getModelFactory();
+        final IProcessableElementTag tag = (IProcessableElementTag) model.get(0);
+        final String ttlValue = tag.getAttributeValue(getDialectPrefix(), TTL_ATTR_NAME);
+        final String tagsValue = tag.getAttributeValue(getDialectPrefix(), TAGS_ATTR_NAME);
+        IProcessableElementTag cleanTag = modelFactory.removeAttribute(tag, attributeName);
+        cleanTag = modelFactory.removeAttribute(cleanTag, getDialectPrefix(), TTL_ATTR_NAME);
+        cleanTag = modelFactory.removeAttribute(cleanTag, getDialectPrefix(), TAGS_ATTR_NAME);
+        model.replace(0, cleanTag);
+        if(BlogContext.isAuthenticated() || TemplateCompiler.isDryRun(context) || StringUtils.isEmpty(attributeValue)) {
+            return;
+        }
+
+        final String templateName = context.getTemplateData().getTemplate();
+        final String key = templateName + ":" + templateVersionRegistry.getVersion(templateName) + ":"
+                + resolveKey(context, attributeValue);
+        final String cached = fragmentCache.get(key);
+        renderProfiler.recordCache(RenderProfiler.FRAGMENT_CACHE, templateName, cached != null);
+        if(cached != null) {
+            model.reset();
+            model.add(modelFactory.createText(cached));
+            return;
+        }
+
+        final String[] modules = resolveModules(tagsValue);
+        final long version = fragmentCache.version(modules);
+        final String html = render(context, model, tag);
+        fragmentCache.put(key, html, resolveTtl(ttlValue), modules, version);
+        model.reset();
+        model.add(modelFactory.createText(html));
+    }
+
+    /**
+     * 使用当前的上下文渲染元素，局部变量同样可用
+     */
+    private String render(ITemplateContext context, IModel model, IProcessableElementTag tag) {
+        final StringWriter markup = new StringWriter();
+        try {
+            model.write(markup);
+        } catch (IOException ex) {
+            throw new TemplateProcessingException("无法读取缓存片段", ex);
+        }
+        final TemplateManager templateManager = context.getConfiguration().getTemplateManager();
+        final TemplateModel templateModel = templateManager.parseString(context.getTemplateData(), markup.toString(),
+                tag.getLine(), tag.getCol(), getTemplateMode(), false);
+        final StringWriter html = new StringWriter();
+        templateManager.process(templateModel, context, html);
+        return html.toString();
+    }
+
+    private String resolveKey(ITemplateContext context, String attributeValue) {
+        final String value = attributeValue.trim();
+        if(value.contains("${") || value.contains("*{") || value.contains("#{")
+                || value.startsWith("|") || value.startsWith("'")) {
+            final Object result = StandardExpressions.getExpressionParser(context.getConfiguration())
+                    .parseExpression(context, value).execute(context);
+            return String.valueOf(result);
+        }
+        return value;
+    }
+
+    private long resolveTtl(String ttlValue) {
+        if(StringUtils.isEmpty(ttlValue)) {
+            return DEFAULT_TTL_SECONDS;
+        }
+        try {
+            return Math.max(1, Long.parseLong(ttlValue.trim()));
+        } catch (NumberFormatException ex) {
+            return DEFAULT_TTL_SECONDS;
+        }
+    }
+
+    private String[] resolveModules(String tagsValue) {
+        if(StringUtils.isEmpty(tagsValue)) {
+            return ContentVersions.allModules();
+        }
+        List<String> modules = new ArrayList<>();
+        for(String module: StringUtils.commaDelimitedListToStringArray(tagsValue)) {
+            final String trimmed = module.trim();
+            if(!ContentVersions.isModule(trimmed)) {
+                throw new TemplateProcessingException("未知的片段缓存标签: " + trimmed);
+            }
+            modules.add(trimmed);
+        }
+        return modules.toArray(new String[0]);
+    }
+}
@@ -2,6 +2,7 @@ package com.qwli7.blog.web;
 
 import com.qwli7.blog.BlogContextFilter;
 import com.qwli7.blog.BlogProperties;
+import com.qwli7.blog.component.RenderProfiler;
 import com.qwli7.blog.entity.Comment;
 import com.qwli7.blog.exception.BlogExceptionResolver;
 import com.qwli7.blog.queue.DataContainer;
@@ -10,6 +11,12 @@ import com.qwli7.blog.service.Markdown2Html;
 import com.qwli7.blog.service.impl.DefaultMarkdown2Html;
 import com.qwli7.blog.template.*;
 import com.qwli7.blog.template.dialect.ExtStandardExpressionDialect;
+import com.qwli7.blog.web.cache.PageCache;
+import com.qwli7.blog.web.cache.PageCacheFilter;
+import com.qwli7.blog.web.resource.ImmutableResourceInterceptor;
+import com.qwli7.blog.web.resource.StaticResourcePrecompressor;
+import com.qwli7.blog.web.resource.StaticResourceProperties;
+import com.qwli7.blog.web.resource.VersionedResourceUrlFilter;
 import org.hibernate.validator.HibernateValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +29,13 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 import org.thymeleaf.dialect.IProcessorDialect;
 import org.thymeleaf.processor.IProcessor;
 import org.thymeleaf.spring5.SpringTemplateEngine;
@@ -57,6 +68,12 @@ public class WebConfiguration implements WebMvcConfigurer {
     @Resource
     private RestTemplate restTemplate;
 
+    @Resource
+    private StaticResourcePrecompressor staticResourcePrecompressor;
+
+    @Resource
+    private StaticResourceProperties staticResourceProperties;
+
 //    @Resource
 //    private TemplateService templateService;
 
@@ -77,6 +94,34 @@ public class WebConfiguration implements WebMvcConfigurer {
         return registrationBean;
     }
 
+    /**
+     * 页面缓存 Filter，需要在 BlogContextFilter 之后执行，以便判断是否登录
+     */
+    @Bean
+    public FilterRegistrationBean<PageCacheFilter> pageCacheFilter(PageCache pageCache, TemplateService templateService,
+                                                                   StreamingProperties streamingProperties,
+                                                                   RenderProfiler renderProfiler) {
+        FilterRegistrationBean<PageCacheFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new PageCacheFilter(pageCache, templateService, streamingProperties, renderProfiler));
+        registrationBean.setDispatcherTypes(DispatcherType.REQUEST);
+        registrationBean.setName(PageCacheFilter.class.getSimpleName());
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registrationBean;
+    }
+
+    /**
+     * 模板中 @{/static/...} 链接改写成带内容摘要的版本
+     */
+    @Bean
+    public FilterRegistrationBean<VersionedResourceUrlFilter> versionedResourceUrlFilter(ResourceUrlProvider resourceUrlProvider) {
+        FilterRegistrationBean<VersionedResourceUrlFilter> registrationBean = new FilterRegistrationBean<>();
+        registrationBean.setFilter(new VersionedResourceUrlFilter(resourceUrlProvider));
+        registrationBean.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ERROR);
+        registrationBean.setName(VersionedResourceUrlFilter.class.getSimpleName());
+        registrationBean.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registrationBean;
+    }
+
 
     @Bean
     public BlogExceptionResolver exceptionResolver() {
@@ -114,10 +159,24 @@ public class WebConfiguration implements WebMvcConfigurer {
         return new MemoryDataContainer<>();
     }
 
+    /**
+     * 静态资源
+     * 优先使用预压缩后的本地目录，根据 Accept-Encoding 返回 .br/.gz 文件；
+     * 文件名中带有内容摘要的路径由 VersionResourceResolver 解析，css 中引用的资源也会被改写
+     */
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/console/**").addResourceLocations("classpath:/static/");
-        registry.addResourceHandler("/static/**").addResourceLocations("classpath:/static/");
+        final String[] locations = staticResourcePrecompressor.getLocations();
+        registry.addResourceHandler("/console/**", "/static/**").addResourceLocations(locations)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ImmutableResourceInterceptor(staticResourceProperties.getVersionedMaxAge()))
+                .addPathPatterns("/console/**", "/static/**");
     }
 
 
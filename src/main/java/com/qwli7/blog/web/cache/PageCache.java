@@ -0,0 +1,143 @@
+package com.qwli7.blog.web.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.qwli7.blog.event.ArticleBatchDeleteEvent;
+import com.qwli7.blog.event.ArticleDeleteEvent;
+import com.qwli7.blog.event.ArticlePostEvent;
+import com.qwli7.blog.event.ArticleUpdateEvent;
+import com.qwli7.blog.event.CategoryChangeEvent;
+import com.qwli7.blog.event.CategoryDeleteEvent;
+import com.qwli7.blog.event.CheckCommentEvent;
+import com.qwli7.blog.event.CommentPostEvent;
+import com.qwli7.blog.event.MomentDeleteEvent;
+import com.qwli7.blog.event.MomentPostEvent;
+import com.qwli7.blog.event.MomentUpdateEvent;
+import com.qwli7.blog.event.TagChangeEvent;
+import com.qwli7.blog.event.TagDeleteEvent;
+import com.qwli7.blog.event.TemplateChangeEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 页面缓存
+ * 保存匿名访问时渲染好的模板页面，内容变化的事件提交后清空全部页面
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class PageCache {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final PageCacheProperties properties;
+
+    private final Cache<String, PageCacheEntry> cache;
+
+    /**
+     * 正在渲染的页面，同一个页面同时只有一个请求渲染
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<PageCacheEntry>> renderingMap = new ConcurrentHashMap<>();
+
+    /**
+     * 每次清空缓存之后加一，清空之前开始渲染的页面不再放入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public PageCache(PageCacheProperties properties) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize().toBytes())
+                .weigher((String key, PageCacheEntry entry) -> key.length() + entry.size())
+                .expireAfterWrite(properties.getTtl().plus(properties.getStaleTtl()).toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public PageCacheEntry get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * 页面是否仍然新鲜
+     * @param entry entry
+     * @return boolean
+     */
+    public boolean isFresh(PageCacheEntry entry) {
+        return System.currentTimeMillis() - entry.getCreateAt() < properties.getTtl().toMillis();
+    }
+
+    /**
+     * 尝试成为页面的渲染者
+     * @param key key
+     * @param future 渲染结果
+     * @return 已经在渲染的结果，为 null 时说明当前请求成为了渲染者
+     */
+    public CompletableFuture<PageCacheEntry> startRendering(String key, CompletableFuture<PageCacheEntry> future) {
+        return renderingMap.putIfAbsent(key, future);
+    }
+
+    /**
+     * 渲染结束
+     * @param key key
+     * @param future 渲染结果
+     * @param entry 渲染好的页面，页面不能缓存时为 null
+     */
+    public void finishRendering(String key, CompletableFuture<PageCacheEntry> future, PageCacheEntry entry) {
+        renderingMap.remove(key, future);
+        future.complete(entry);
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * 放入缓存
+     * @param key key
+     * @param contentType contentType
+     * @param gzipBody 压缩后的页面
+     * @param lastModified 页面的 Last-Modified
+     * @param startGeneration 开始渲染时的版本
+     * @return PageCacheEntry
+     */
+    public PageCacheEntry put(String key, String contentType, byte[] gzipBody, long lastModified, long startGeneration) {
+        final PageCacheEntry entry = new PageCacheEntry(contentType, gzipBody, lastModified, properties.isOffHeap());
+        if(startGeneration == generation.get()) {
+            cache.put(key, entry);
+        }
+        return entry;
+    }
+
+    public long getWaitTimeoutMillis() {
+        return properties.getWaitTimeout().toMillis();
+    }
+
+    /**
+     * 清空页面缓存
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(value = {ArticlePostEvent.class, ArticleUpdateEvent.class, ArticleDeleteEvent.class,
+            ArticleBatchDeleteEvent.class, MomentPostEvent.class, MomentUpdateEvent.class, MomentDeleteEvent.class,
+            CommentPostEvent.class, CheckCommentEvent.class, TemplateChangeEvent.class, CategoryChangeEvent.class,
+            CategoryDeleteEvent.class, TagChangeEvent.class, TagDeleteEvent.class}, fallbackExecution = true)
+    public void onContentChange(ApplicationEvent event) {
+        logger.debug("method<onContentChange> 清空页面缓存: [{}]", event.getClass().getSimpleName());
+        clear();
+    }
+}
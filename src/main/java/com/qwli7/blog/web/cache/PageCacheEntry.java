@@ -0,0 +1,79 @@
+package com.qwli7.blog.web.cache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 缓存的页面
+ * 页面内容以 gzip 压缩后的字节保存，可以放在堆内或者堆外
+ * @author liqiwen
+ * @since 2.5
+ */
+public class PageCacheEntry {
+
+    private static final int COPY_BUFFER_SIZE = 8192;
+
+    private final String contentType;
+
+    private final ByteBuffer gzipBody;
+
+    /**
+     * 页面渲染完成的时间
+     */
+    private final long createAt;
+
+    /**
+     * 页面的 Last-Modified，没有时为 -1
+     */
+    private final long lastModified;
+
+    public PageCacheEntry(String contentType, byte[] gzipBody, long lastModified, boolean offHeap) {
+        this.contentType = contentType;
+        this.lastModified = lastModified;
+        if(offHeap) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(gzipBody.length);
+            buffer.put(gzipBody);
+            buffer.flip();
+            this.gzipBody = buffer.asReadOnlyBuffer();
+        } else {
+            this.gzipBody = ByteBuffer.wrap(gzipBody).asReadOnlyBuffer();
+        }
+        this.createAt = System.currentTimeMillis();
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getCreateAt() {
+        return createAt;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * 压缩后的大小
+     * @return int
+     */
+    public int size() {
+        return gzipBody.limit();
+    }
+
+    /**
+     * 写出压缩后的内容
+     * @param os os
+     * @throws IOException IOException
+     */
+    public void writeTo(OutputStream os) throws IOException {
+        final ByteBuffer buffer = gzipBody.duplicate();
+        byte[] chunk = new byte[Math.min(COPY_BUFFER_SIZE, buffer.remaining())];
+        while (buffer.hasRemaining()) {
+            final int length = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, length);
+            os.write(chunk, 0, length);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.qwli7.blog.web.cache;
+
+import com.qwli7.blog.BlogContext;
+import com.qwli7.blog.component.RenderProfiler;
+import com.qwli7.blog.template.StreamingProperties;
+import com.qwli7.blog.template.TemplateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 页面缓存 Filter
+ * 1. 只缓存匿名访问的模板页面，登录之后不走缓存
+ * 2. 同一个页面同时只有一个请求渲染，其他请求等待渲染结果
+ * 3. 页面过期之后在 staleTtl 内仍然返回旧页面，由一个请求重新渲染
+ * @author liqiwen
+ * @since 2.5
+ */
+public class PageCacheFilter extends OncePerRequestFilter {
+
+    /**
+     * 模板页面渲染时设置该属性，只有设置了该属性的响应才会被缓存
+     */
+    public static final String CACHEABLE_ATTRIBUTE = PageCacheFilter.class.getName() + ".CACHEABLE";
+
+    private static final String CACHE_STATUS_HEADER = "X-Page-Cache";
+
+    private static final String GZIP = "gzip";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final PageCache pageCache;
+
+    private final TemplateService templateService;
+
+    private final StreamingProperties streamingProperties;
+
+    private final RenderProfiler renderProfiler;
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public PageCacheFilter(PageCache pageCache, TemplateService templateService, StreamingProperties streamingProperties,
+                           RenderProfiler renderProfiler) {
+        this.pageCache = pageCache;
+        this.templateService = templateService;
+        this.streamingProperties = streamingProperties;
+        this.renderProfiler = renderProfiler;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if(!pageCache.isEnabled() || !HttpMethod.GET.matches(request.getMethod()) || BlogContext.isAuthenticated()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final String lookupPath = urlPathHelper.getLookupPathForRequest(request);
+        final Optional<String> templateNameOp = templateService.matchTemplateName(lookupPath);
+        if(!templateNameOp.isPresent()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        final String templateName = templateNameOp.get();
+        final String key = buildKey(lookupPath, request);
+        final PageCacheEntry entry = pageCache.get(key);
+        if(entry != null && pageCache.isFresh(entry)) {
+            renderProfiler.recordCache(RenderProfiler.PAGE_CACHE, templateName, true);
+            writeEntry(request, response, entry, "HIT");
+            return;
+        }
+
+        final CompletableFuture<PageCacheEntry> future = new CompletableFuture<>();
+        final CompletableFuture<PageCacheEntry> rendering = pageCache.startRendering(key, future);
+        if(rendering != null) {
+            // 其他请求正在渲染，有旧页面时直接返回旧页面，没有则等待渲染结果
+            if(entry != null) {
+                renderProfiler.recordCache(RenderProfiler.PAGE_CACHE, templateName, true);
+                writeEntry(request, response, entry, "STALE");
+                return;
+            }
+            final PageCacheEntry rendered = await(rendering);
+            renderProfiler.recordCache(RenderProfiler.PAGE_CACHE, templateName, rendered != null);
+            if(rendered != null) {
+                writeEntry(request, response, rendered, "HIT");
+            } else {
+                filterChain.doFilter(request, response);
+            }
+            return;
+        }
+
+        renderProfiler.recordCache(RenderProfiler.PAGE_CACHE, templateName, false);
+        PageCacheEntry rendered = null;
+        try {
+            if(streamingProperties.isStreaming(templateName)) {
+                rendered = renderStreaming(templateName, key, request, response, filterChain);
+            } else {
+                rendered = render(templateName, key, request, response, filterChain);
+            }
+        } finally {
+            pageCache.finishRendering(key, future, rendered);
+        }
+    }
+
+    /**
+     * 渲染页面，可以缓存时压缩后放入缓存
+     * @return PageCacheEntry 不能缓存时返回 null
+     */
+    private PageCacheEntry render(String templateName, String key, HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain filterChain) throws ServletException, IOException {
+        final long generation = pageCache.getGeneration();
+        final ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        PageCacheEntry entry = null;
+        try {
+            filterChain.doFilter(request, responseWrapper);
+            renderProfiler.recordOutput(templateName, responseWrapper.getContentSize());
+            if(isCacheable(request, responseWrapper)) {
+                entry = pageCache.put(key, responseWrapper.getContentType(),
+                        gzip(responseWrapper.getContentAsByteArray()), getLastModified(responseWrapper), generation);
+                responseWrapper.setHeader(CACHE_STATUS_HEADER, "MISS");
+            }
+        } finally {
+            responseWrapper.copyBodyToResponse();
+        }
+        return entry;
+    }
+
+    /**
+     * 流式渲染，边渲染边输出，同时复制一份内容，完整并且可以缓存时压缩后放入缓存
+     * @return PageCacheEntry 不能缓存时返回 null
+     */
+    private PageCacheEntry renderStreaming(String templateName, String key, HttpServletRequest request,
+                                           HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final long generation = pageCache.getGeneration();
+        final StreamingCaptureResponseWrapper responseWrapper = new StreamingCaptureResponseWrapper(response,
+                (int) streamingProperties.getMaxCacheableSize().toBytes());
+        // 响应在渲染过程中就已经提交，缓存状态只能提前设置
+        responseWrapper.setHeader(CACHE_STATUS_HEADER, "MISS");
+        filterChain.doFilter(request, responseWrapper);
+        responseWrapper.flush();
+        renderProfiler.recordOutput(templateName, responseWrapper.getWrittenSize());
+        final byte[] content = responseWrapper.getCapturedContent();
+        if(!responseWrapper.isComplete() || content.length == 0
+                || !Boolean.TRUE.equals(request.getAttribute(CACHEABLE_ATTRIBUTE))
+                || request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE) != null
+                || responseWrapper.getStatus() != HttpServletResponse.SC_OK) {
+            return null;
+        }
+        return pageCache.put(key, responseWrapper.getContentType(), gzip(content), getLastModified(responseWrapper), generation);
+    }
+
+    private boolean isCacheable(HttpServletRequest request, ContentCachingResponseWrapper responseWrapper) {
+        return Boolean.TRUE.equals(request.getAttribute(CACHEABLE_ATTRIBUTE))
+                && request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE) == null
+                && responseWrapper.getStatus() == HttpServletResponse.SC_OK
+                && responseWrapper.getContentSize() > 0;
+    }
+
+    private long getLastModified(HttpServletResponse response) {
+        final String lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+        if(lastModified == null) {
+            return -1;
+        }
+        try {
+            return ZonedDateTime.parse(lastModified, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException ex) {
+            return -1;
+        }
+    }
+
+    private PageCacheEntry await(CompletableFuture<PageCacheEntry> rendering) {
+        try {
+            return rendering.get(pageCache.getWaitTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException ex) {
+            logger.warn("method<await> 等待页面渲染失败: [{}]", ex.getMessage());
+            return null;
+        }
+    }
+
+    private void writeEntry(HttpServletRequest request, HttpServletResponse response,
+                            PageCacheEntry entry, String cacheStatus) throws IOException {
+        // 缓存命中时不经过 DispatcherServlet，这里需要自己处理协商缓存
+        if(entry.getLastModified() > 0 && new ServletWebRequest(request, response).checkNotModified(entry.getLastModified())) {
+            return;
+        }
+        if(entry.getContentType() != null) {
+            response.setContentType(entry.getContentType());
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(CACHE_STATUS_HEADER, cacheStatus);
+        if(acceptsGzip(request)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            response.setContentLength(entry.size());
+            entry.writeTo(response.getOutputStream());
+            return;
+        }
+        ByteArrayOutputStream gzipBody = new ByteArrayOutputStream(entry.size());
+        entry.writeTo(gzipBody);
+        try (GZIPInputStream is = new GZIPInputStream(new ByteArrayInputStream(gzipBody.toByteArray()))) {
+            StreamUtils.copy(is, response.getOutputStream());
+        }
+    }
+
+    private boolean acceptsGzip(HttpServletRequest request) {
+        final String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains(GZIP);
+    }
+
+    private byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gos = new GZIPOutputStream(bos)) {
+            gos.write(body);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * 缓存 key，路径 + 排序后的查询参数
+     * @param lookupPath lookupPath
+     * @param request request
+     * @return String
+     */
+    private String buildKey(String lookupPath, HttpServletRequest request) {
+        final Map<String, String[]> parameterMap = request.getParameterMap();
+        if(parameterMap.isEmpty()) {
+            return lookupPath;
+        }
+        StringBuilder sb = new StringBuilder(lookupPath).append('?');
+        for(Map.Entry<String, String[]> entry: new TreeMap<>(parameterMap).entrySet()) {
+            for(String value: entry.getValue()) {
+                sb.append(entry.getKey()).append('=').append(value).append('&');
+            }
+        }
+        return sb.toString();
+    }
+}
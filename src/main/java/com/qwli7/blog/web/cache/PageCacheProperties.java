@@ -0,0 +1,95 @@
+package com.qwli7.blog.web.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 页面缓存配置
+ * @author liqiwen
+ * @since 2.5
+ */
+@Configuration
+@ConfigurationProperties(prefix = "blog.page-cache")
+public class PageCacheProperties {
+
+    /**
+     * 是否开启页面缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存的最大容量(压缩后)
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 缓存新鲜的时间，超过后仍然可以返回旧页面，同时由一个请求重新渲染
+     */
+    private Duration ttl = Duration.ofMinutes(1);
+
+    /**
+     * 过期之后仍然允许返回旧页面的时间
+     */
+    private Duration staleTtl = Duration.ofMinutes(10);
+
+    /**
+     * 等待其他请求渲染同一个页面的最长时间，超时后自行渲染
+     */
+    private Duration waitTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 是否将压缩后的页面存放在堆外内存中
+     */
+    private boolean offHeap;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public DataSize getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(DataSize maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    public Duration getStaleTtl() {
+        return staleTtl;
+    }
+
+    public void setStaleTtl(Duration staleTtl) {
+        this.staleTtl = staleTtl;
+    }
+
+    public Duration getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    public void setWaitTimeout(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+}
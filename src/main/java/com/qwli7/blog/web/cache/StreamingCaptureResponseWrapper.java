@@ -0,0 +1,168 @@
+package com.qwli7.blog.web.cache;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * 流式渲染页面的响应包装
+ * 内容直接写到响应中，同时复制一份用于放入页面缓存，超过上限之后不再复制
+ * @author liqiwen
+ * @since 2.5
+ */
+public class StreamingCaptureResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int maxCaptureSize;
+
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+    private boolean overflow;
+
+    private long writtenSize;
+
+    private ServletOutputStream outputStream;
+
+    private PrintWriter writer;
+
+    public StreamingCaptureResponseWrapper(HttpServletResponse response, int maxCaptureSize) {
+        super(response);
+        this.maxCaptureSize = maxCaptureSize;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if(writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        if(outputStream == null) {
+            outputStream = new CaptureOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if(outputStream != null && writer == null) {
+            throw new IllegalStateException("getOutputStream() has already been called");
+        }
+        if(writer == null) {
+            outputStream = new CaptureOutputStream(super.getOutputStream());
+            writer = new PrintWriter(new OutputStreamWriter(outputStream, getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if(writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        discard();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        discard();
+    }
+
+    /**
+     * 未提交的响应被重置后（例如渲染错误页面），之前复制的内容也需要丢弃
+     */
+    private void discard() {
+        captured.reset();
+        overflow = false;
+        writtenSize = 0;
+        writer = null;
+        outputStream = null;
+    }
+
+    /**
+     * 将 writer 中的内容写出
+     */
+    public void flush() {
+        if(writer != null) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * 复制的内容是否完整
+     * @return boolean
+     */
+    public boolean isComplete() {
+        return !overflow;
+    }
+
+    /**
+     * 已经写出的字节数，包括超过上限没有复制的部分
+     * @return long
+     */
+    public long getWrittenSize() {
+        return writtenSize;
+    }
+
+    public byte[] getCapturedContent() {
+        return captured.toByteArray();
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        writtenSize += len;
+        if(overflow) {
+            return;
+        }
+        if(captured.size() + len > maxCaptureSize) {
+            overflow = true;
+            captured.reset();
+            return;
+        }
+        captured.write(b, off, len);
+    }
+
+    private final class CaptureOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        private CaptureOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.qwli7.blog.web.controller;
 
 import com.qwli7.blog.BlogProperties;
+import com.qwli7.blog.component.ContentVersions;
 import com.qwli7.blog.entity.Article;
 import com.qwli7.blog.entity.ArticleSaved;
 import com.qwli7.blog.entity.dto.PageDto;
@@ -11,6 +12,7 @@ import com.qwli7.blog.service.ArticleService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
@@ -31,10 +33,13 @@ public class ArticleController {
 
     private final ArticleService articleService;
     private final BlogProperties blogProperties;
+    private final ContentVersions contentVersions;
 
-    public ArticleController(ArticleService articleService, BlogProperties blogProperties) {
+    public ArticleController(ArticleService articleService, BlogProperties blogProperties,
+                             ContentVersions contentVersions) {
         this.articleService = articleService;
         this.blogProperties = blogProperties;
+        this.contentVersions = contentVersions;
     }
 
     /**
@@ -50,11 +55,17 @@ public class ArticleController {
 
     /**
      * 获取文章列表
+     * 文章、分类、标签、评论都没有变化时返回 304
      * @param queryParam queryParam
+     * @param webRequest webRequest
      * @return PageDto
      */
     @GetMapping("articles")
-    public PageDto<Article> findPage(ArticleQueryParam queryParam) {
+    public PageDto<Article> findPage(ArticleQueryParam queryParam, WebRequest webRequest) {
+        if(webRequest.checkNotModified(contentVersions.etag(ContentVersions.ARTICLE, ContentVersions.CATEGORY,
+                ContentVersions.TAG, ContentVersions.COMMENT))) {
+            return null;
+        }
         if(queryParam.hasNoSize()) {
             queryParam.setSize(blogProperties.getDefaultPageSize());
         }
@@ -64,14 +75,19 @@ public class ArticleController {
     /**
      * 获取文章，编辑
      * @param id id
+     * @param webRequest webRequest
      * @return Article
      */
     @GetMapping("article/{id}")
-    public Article getArticleForEdit(@PathVariable("id") @Min(value = 1, message = "invalid id") int id) {
+    public Article getArticleForEdit(@PathVariable("id") @Min(value = 1, message = "invalid id") int id,
+                                     WebRequest webRequest) {
         final Optional<Article> articleOp = articleService.findArticleForEdit(id);
         if(!articleOp.isPresent()) {
             throw new ResourceNotFoundException("article.notFound", "内容没找到");
         }
+        if(webRequest.checkNotModified(ContentVersions.toMillis(articleOp.get().getModifyAt()))) {
+            return null;
+        }
         return articleOp.get();
     }
 
@@ -1,5 +1,6 @@
 package com.qwli7.blog.web.controller;
 
+import com.qwli7.blog.component.ContentVersions;
 import com.qwli7.blog.entity.Category;
 import com.qwli7.blog.exception.ResourceNotFoundException;
 import com.qwli7.blog.security.Authenticated;
@@ -7,6 +8,7 @@ import com.qwli7.blog.service.CategoryService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -23,30 +25,40 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final ContentVersions contentVersions;
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, ContentVersions contentVersions) {
         super();
         this.categoryService = categoryService;
+        this.contentVersions = contentVersions;
     }
 
     /**
      * 获取全部的分类列表
+     * @param webRequest webRequest
      * @return List
      */
     @GetMapping("categories")
-    public List<Category> findAll() {
+    public List<Category> findAll(WebRequest webRequest) {
+        if(webRequest.checkNotModified(contentVersions.etag(ContentVersions.CATEGORY))) {
+            return null;
+        }
         return categoryService.findAll();
     }
 
     /**
      * 获取分类以编辑
      * @param id id
+     * @param webRequest webRequest
      * @return ResponseEntity
      */
     @GetMapping("category/{id}")
-    public ResponseEntity<Category> getCategoryForEdit(@PathVariable("id") int id) {
+    public ResponseEntity<Category> getCategoryForEdit(@PathVariable("id") int id, WebRequest webRequest) {
         final Category category = categoryService.findById(id).orElseThrow(() ->
                 new ResourceNotFoundException("category.notExists", "分类不存在"));
+        if(webRequest.checkNotModified(ContentVersions.toMillis(category.getModifyAt()))) {
+            return null;
+        }
         return ResponseEntity.ok(category);
     }
 
@@ -1,6 +1,7 @@
 package com.qwli7.blog.web.controller;
 
 import com.qwli7.blog.BlogProperties;
+import com.qwli7.blog.component.ContentVersions;
 import com.qwli7.blog.entity.Moment;
 import com.qwli7.blog.entity.dto.PageDto;
 import com.qwli7.blog.entity.vo.MomentQueryParam;
@@ -9,6 +10,7 @@ import com.qwli7.blog.security.Authenticated;
 import com.qwli7.blog.service.MomentService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 
@@ -24,19 +26,26 @@ public class MomentController {
 
     private final MomentService momentService;
     private final BlogProperties blogProperties;
+    private final ContentVersions contentVersions;
 
-    public MomentController(MomentService momentService, BlogProperties blogProperties) {
+    public MomentController(MomentService momentService, BlogProperties blogProperties,
+                            ContentVersions contentVersions) {
         this.momentService = momentService;
         this.blogProperties = blogProperties;
+        this.contentVersions = contentVersions;
     }
 
     /**
      * 查询动态
      * @param queryParam queryParam
+     * @param webRequest webRequest
      * @return 动态列表
      */
     @GetMapping("moments")
-    public ResponseEntity<PageDto<Moment>> findAll(MomentQueryParam queryParam) {
+    public ResponseEntity<PageDto<Moment>> findAll(MomentQueryParam queryParam, WebRequest webRequest) {
+        if(webRequest.checkNotModified(contentVersions.etag(ContentVersions.MOMENT, ContentVersions.COMMENT))) {
+            return null;
+        }
         Boolean orderDesc = queryParam.getOrderDesc();
         if(orderDesc == null) {
             orderDesc = true;
@@ -90,11 +99,16 @@ public class MomentController {
     /**
      * 获取动态用以编辑
      * @param id id
+     * @param webRequest webRequest
      * @return Moment
      */
     @GetMapping("moment/{id}")
-    public Moment getMomentForEdit(@PathVariable("id") int id) {
-        return momentService.findMomentForEdit(id).orElseThrow(()
+    public Moment getMomentForEdit(@PathVariable("id") int id, WebRequest webRequest) {
+        final Moment moment = momentService.findMomentForEdit(id).orElseThrow(()
                 -> new ResourceNotFoundException("moment.notExists", "动态不存在"));
+        if(webRequest.checkNotModified(ContentVersions.toMillis(moment.getModifyAt()))) {
+            return null;
+        }
+        return moment;
     }
 }
@@ -0,0 +1,36 @@
+package com.qwli7.blog.web.controller;
+
+import com.qwli7.blog.component.RenderProfiler;
+import com.qwli7.blog.security.Authenticated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 渲染统计
+ * @author liqiwen
+ * @since 2.5
+ */
+@Authenticated
+@RestController
+@RequestMapping("api")
+public class ProfileController {
+
+    private final RenderProfiler renderProfiler;
+
+    public ProfileController(RenderProfiler renderProfiler) {
+        this.renderProfiler = renderProfiler;
+    }
+
+    /**
+     * 最近几分钟的模板解析、渲染、输出大小，data provider 和 markdown 耗时，以及缓存命中率
+     * 耗时单位为微秒，大小单位为字节
+     * @return Map
+     */
+    @GetMapping("profile/render")
+    public Map<String, Object> render() {
+        return renderProfiler.snapshot();
+    }
+}
@@ -1,6 +1,7 @@
 package com.qwli7.blog.web.controller;
 
 import com.qwli7.blog.BlogProperties;
+import com.qwli7.blog.component.ContentVersions;
 import com.qwli7.blog.entity.Tag;
 import com.qwli7.blog.entity.dto.PageDto;
 import com.qwli7.blog.entity.vo.CommonQueryParam;
@@ -9,6 +10,7 @@ import com.qwli7.blog.security.Authenticated;
 import com.qwli7.blog.service.TagService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 
@@ -24,20 +26,27 @@ public class TagController {
 
     private final TagService tagService;
     private final BlogProperties blogProperties;
+    private final ContentVersions contentVersions;
 
-    public TagController(TagService tagService, BlogProperties blogProperties) {
+    public TagController(TagService tagService, BlogProperties blogProperties, ContentVersions contentVersions) {
         super();
         this.tagService = tagService;
         this.blogProperties = blogProperties;
+        this.contentVersions = contentVersions;
     }
 
     /**
      * 分类获取标签列表
+     * 保存文章时也会新增标签，因此也依赖文章的版本
      * @param queryParam queryParam
+     * @param webRequest webRequest
      * @return PageDto
      */
     @GetMapping("tags")
-    public PageDto<Tag> findPage(CommonQueryParam queryParam) {
+    public PageDto<Tag> findPage(CommonQueryParam queryParam, WebRequest webRequest) {
+        if(webRequest.checkNotModified(contentVersions.etag(ContentVersions.TAG, ContentVersions.ARTICLE))) {
+            return null;
+        }
         if(queryParam.hasNoSize()) {
             queryParam.setSize(blogProperties.getDefaultPageSize());
         }
@@ -47,12 +56,17 @@ public class TagController {
     /**
      * 根据 id 获取标签
      * @param id id
+     * @param webRequest webRequest
      * @return Tag
      */
     @GetMapping("tag/{id}")
-    public Tag findById(@PathVariable("id") int id) {
-        return tagService.findById(id).orElseThrow(()
+    public Tag findById(@PathVariable("id") int id, WebRequest webRequest) {
+        final Tag tag = tagService.findById(id).orElseThrow(()
                 -> new ResourceNotFoundException("tag.notExists","标签不存在"));
+        if(webRequest.checkNotModified(ContentVersions.toMillis(tag.getModifyAt()))) {
+            return null;
+        }
+        return tag;
     }
 
     /**
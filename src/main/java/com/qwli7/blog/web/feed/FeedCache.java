@@ -0,0 +1,226 @@
+package com.qwli7.blog.web.feed;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.qwli7.blog.component.ContentVersions;
+import com.qwli7.blog.event.ArticleBatchDeleteEvent;
+import com.qwli7.blog.event.ArticleDeleteEvent;
+import com.qwli7.blog.event.ArticlePostEvent;
+import com.qwli7.blog.event.ArticleUpdateEvent;
+import com.qwli7.blog.event.MomentDeleteEvent;
+import com.qwli7.blog.event.MomentPostEvent;
+import com.qwli7.blog.event.MomentUpdateEvent;
+import com.qwli7.blog.event.TemplateChangeEvent;
+import com.qwli7.blog.web.cache.PageCacheEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * sitemap 和 rss 缓存
+ * 1. 未命中时由一个请求生成，边写响应边压缩到缓存中，其他请求等待生成结果
+ * 2. 命中时直接写出压缩后的字节，不访问数据库
+ * 3. 文章、动态或者模板发生变更后清空缓存
+ * 4. 没有配置 urlPrefix 时 key 中包含请求的站点地址，任何人都可以构造不同的 Host，缓存的数量有上限
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class FeedCache {
+
+    private static final String CACHE_STATUS_HEADER = "X-Feed-Cache";
+
+    private static final String GZIP = "gzip";
+
+    private static final long WAIT_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * 最多缓存的 sitemap 和 rss 数量，每个站点地址各一份
+     */
+    private static final int MAX_ENTRIES = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final ContentVersions contentVersions;
+
+    private final Cache<String, PageCacheEntry> entryCache = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .build();
+
+    private final Map<String, CompletableFuture<PageCacheEntry>> generatingMap = new ConcurrentHashMap<>();
+
+    /**
+     * 每次清空缓存时递增，生成期间发生过变更的内容不放入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public FeedCache(ContentVersions contentVersions) {
+        this.contentVersions = contentVersions;
+    }
+
+    /**
+     * 写出缓存的内容，没有缓存时生成
+     * @param key 缓存 key
+     * @param contentType contentType
+     * @param request request
+     * @param response response
+     * @param generator 内容生成
+     * @throws IOException IOException
+     */
+    public void serve(String key, String contentType, HttpServletRequest request, HttpServletResponse response,
+                      FeedGenerator generator) throws IOException {
+        final long lastModified = contentVersions.lastModified(ContentVersions.ARTICLE, ContentVersions.MOMENT,
+                ContentVersions.TEMPLATE);
+        if(new ServletWebRequest(request, response).checkNotModified(lastModified)) {
+            return;
+        }
+        final PageCacheEntry entry = entryCache.getIfPresent(key);
+        if(entry != null) {
+            writeEntry(request, response, entry, "HIT");
+            return;
+        }
+        final CompletableFuture<PageCacheEntry> future = new CompletableFuture<>();
+        final CompletableFuture<PageCacheEntry> generating = generatingMap.putIfAbsent(key, future);
+        if(generating != null) {
+            final PageCacheEntry generated = await(generating);
+            if(generated != null) {
+                writeEntry(request, response, generated, "HIT");
+            } else {
+                response.setContentType(contentType);
+                generator.generate(response.getOutputStream());
+            }
+            return;
+        }
+
+        PageCacheEntry generated = null;
+        try {
+            generated = generate(key, contentType, lastModified, response, generator);
+        } finally {
+            generatingMap.remove(key, future);
+            future.complete(generated);
+        }
+    }
+
+    private PageCacheEntry generate(String key, String contentType, long lastModified, HttpServletResponse response,
+                                    FeedGenerator generator) throws IOException {
+        final long current = generation.get();
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(CACHE_STATUS_HEADER, "MISS");
+        final ByteArrayOutputStream gzipBody = new ByteArrayOutputStream();
+        try (TeeOutputStream os = new TeeOutputStream(response.getOutputStream(), new GZIPOutputStream(gzipBody))) {
+            generator.generate(os);
+        }
+        final PageCacheEntry entry = new PageCacheEntry(contentType, gzipBody.toByteArray(), lastModified, false);
+        if(generation.get() == current) {
+            entryCache.put(key, entry);
+            logger.info("method<generate> 缓存[{}]，压缩后大小[{}]", key, entry.size());
+        }
+        return entry;
+    }
+
+    @TransactionalEventListener(value = {ArticlePostEvent.class, ArticleUpdateEvent.class, ArticleDeleteEvent.class,
+            ArticleBatchDeleteEvent.class, MomentPostEvent.class, MomentUpdateEvent.class, MomentDeleteEvent.class,
+            TemplateChangeEvent.class}, fallbackExecution = true)
+    public void evictAll() {
+        generation.incrementAndGet();
+        entryCache.invalidateAll();
+    }
+
+    private void writeEntry(HttpServletRequest request, HttpServletResponse response,
+                            PageCacheEntry entry, String cacheStatus) throws IOException {
+        response.setContentType(entry.getContentType());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(CACHE_STATUS_HEADER, cacheStatus);
+        final String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if(acceptEncoding != null && acceptEncoding.toLowerCase().contains(GZIP)) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+            response.setContentLength(entry.size());
+            entry.writeTo(response.getOutputStream());
+            return;
+        }
+        ByteArrayOutputStream gzipBody = new ByteArrayOutputStream(entry.size());
+        entry.writeTo(gzipBody);
+        try (GZIPInputStream is = new GZIPInputStream(new ByteArrayInputStream(gzipBody.toByteArray()))) {
+            StreamUtils.copy(is, response.getOutputStream());
+        }
+    }
+
+    private PageCacheEntry await(CompletableFuture<PageCacheEntry> generating) {
+        try {
+            return generating.get(WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException ex) {
+            logger.warn("method<await> 等待生成失败: [{}]", ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 内容生成
+     */
+    @FunctionalInterface
+    public interface FeedGenerator {
+
+        void generate(OutputStream os) throws IOException;
+    }
+
+    /**
+     * 同时写到响应和压缩流中，关闭时只关闭压缩流，响应由容器关闭
+     */
+    private static final class TeeOutputStream extends FilterOutputStream {
+
+        private final OutputStream branch;
+
+        private TeeOutputStream(OutputStream out, OutputStream branch) {
+            super(out);
+            this.branch = branch;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            branch.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            branch.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+            branch.close();
+        }
+    }
+}
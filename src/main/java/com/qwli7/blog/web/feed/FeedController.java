@@ -0,0 +1,61 @@
+package com.qwli7.blog.web.feed;
+
+import com.qwli7.blog.BlogProperties;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * sitemap 和 rss
+ * @author liqiwen
+ * @since 2.5
+ */
+@Controller
+public class FeedController {
+
+    private static final String SITEMAP_CONTENT_TYPE = "application/xml;charset=UTF-8";
+
+    private static final String FEED_CONTENT_TYPE = "application/rss+xml;charset=UTF-8";
+
+    private final FeedWriter feedWriter;
+
+    private final FeedCache feedCache;
+
+    private final BlogProperties blogProperties;
+
+    public FeedController(FeedWriter feedWriter, FeedCache feedCache, BlogProperties blogProperties) {
+        this.feedWriter = feedWriter;
+        this.feedCache = feedCache;
+        this.blogProperties = blogProperties;
+    }
+
+    @GetMapping("sitemap.xml")
+    public void sitemap(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final String baseUrl = getBaseUrl();
+        feedCache.serve("sitemap:" + baseUrl, SITEMAP_CONTENT_TYPE, request, response,
+                os -> feedWriter.writeSitemap(os, baseUrl));
+    }
+
+    @GetMapping("feed.xml")
+    public void feed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final String baseUrl = getBaseUrl();
+        feedCache.serve("feed:" + baseUrl, FEED_CONTENT_TYPE, request, response,
+                os -> feedWriter.writeFeed(os, baseUrl));
+    }
+
+    /**
+     * 站点地址，配置了 urlPrefix 时优先使用
+     * @return String 不以 / 结尾
+     */
+    private String getBaseUrl() {
+        final String urlPrefix = blogProperties.getUrlPrefix();
+        final String baseUrl = StringUtils.isEmpty(urlPrefix)
+                ? ServletUriComponentsBuilder.fromCurrentContextPath().toUriString() : urlPrefix;
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+}
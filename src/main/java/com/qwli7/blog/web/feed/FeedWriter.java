@@ -0,0 +1,209 @@
+package com.qwli7.blog.web.feed;
+
+import com.qwli7.blog.entity.Article;
+import com.qwli7.blog.entity.ArticleStatus;
+import com.qwli7.blog.entity.Moment;
+import com.qwli7.blog.entity.Template;
+import com.qwli7.blog.entity.vo.TemplateQueryParam;
+import com.qwli7.blog.mapper.ArticleMapper;
+import com.qwli7.blog.mapper.MomentMapper;
+import com.qwli7.blog.service.ConfigService;
+import com.qwli7.blog.template.TemplateNameEnum;
+import com.qwli7.blog.template.TemplateService;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * sitemap 和 rss 生成
+ * 通过 MyBatis 游标逐行读取文章和动态，使用 StAX 直接写到输出流中，内存中不会保存完整的列表
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class FeedWriter {
+
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private static final String SITEMAP_NAMESPACE = "http://www.sitemaps.org/schemas/sitemap/0.9";
+
+    /**
+     * rss 中最多包含的文章数
+     */
+    private static final int FEED_SIZE = 20;
+
+    private final ArticleMapper articleMapper;
+
+    private final MomentMapper momentMapper;
+
+    private final TemplateService templateService;
+
+    private final ConfigService configService;
+
+    public FeedWriter(ArticleMapper articleMapper, MomentMapper momentMapper,
+                      TemplateService templateService, ConfigService configService) {
+        this.articleMapper = articleMapper;
+        this.momentMapper = momentMapper;
+        this.templateService = templateService;
+        this.configService = configService;
+    }
+
+    /**
+     * 写出 sitemap，包括不带变量的模板页面、所有公开文章以及公开动态
+     * @param os os
+     * @param baseUrl 站点地址，不以 / 结尾
+     */
+    @Transactional(readOnly = true)
+    public void writeSitemap(OutputStream os, String baseUrl) throws IOException {
+        final Links links = loadLinks(baseUrl);
+        try {
+            final XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(os, StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            writer.writeStartElement("urlset");
+            writer.writeDefaultNamespace(SITEMAP_NAMESPACE);
+            for(String page: links.pages) {
+                writeUrl(writer, page, null);
+            }
+            try (Cursor<Article> cursor = articleMapper.findFeedArticles(ArticleStatus.POST, null)) {
+                for(Article article: cursor) {
+                    writeUrl(writer, links.article(article), article.getModifyAt());
+                }
+            }
+            if(links.momentPattern != null) {
+                try (Cursor<Moment> cursor = momentMapper.findFeedMoments()) {
+                    for(Moment moment: cursor) {
+                        writeUrl(writer, links.moment(moment), moment.getModifyAt());
+                    }
+                }
+            }
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * 写出 rss 2.0，包括最新发布的文章
+     * @param os os
+     * @param baseUrl 站点地址，不以 / 结尾
+     */
+    @Transactional(readOnly = true)
+    public void writeFeed(OutputStream os, String baseUrl) throws IOException {
+        final Links links = loadLinks(baseUrl);
+        final String nickname = configService.getConfig().getNickname();
+        try {
+            final XMLStreamWriter writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(os, StandardCharsets.UTF_8.name());
+            writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            writer.writeStartElement("rss");
+            writer.writeAttribute("version", "2.0");
+            writer.writeStartElement("channel");
+            writeElement(writer, "title", StringUtils.isEmpty(nickname) ? "blog" : nickname);
+            writeElement(writer, "link", baseUrl + "/");
+            writeElement(writer, "description", StringUtils.isEmpty(nickname) ? "blog" : nickname);
+            try (Cursor<Article> cursor = articleMapper.findFeedArticles(ArticleStatus.POST, FEED_SIZE)) {
+                for(Article article: cursor) {
+                    final String link = links.article(article);
+                    writer.writeStartElement("item");
+                    writeElement(writer, "title", article.getTitle());
+                    writeElement(writer, "link", link);
+                    writeElement(writer, "guid", link);
+                    if(article.getPostAt() != null) {
+                        writeElement(writer, "pubDate", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                                article.getPostAt().atZone(ZoneId.systemDefault())));
+                    }
+                    if(!StringUtils.isEmpty(article.getSummary())) {
+                        writeElement(writer, "description", article.getSummary());
+                    }
+                    writer.writeEndElement();
+                }
+            }
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.flush();
+            writer.close();
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private void writeUrl(XMLStreamWriter writer, String loc, LocalDateTime lastModified) throws XMLStreamException {
+        writer.writeStartElement("url");
+        writeElement(writer, "loc", loc);
+        if(lastModified != null) {
+            writeElement(writer, "lastmod", DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(
+                    lastModified.withNano(0).atZone(ZoneId.systemDefault())));
+        }
+        writer.writeEndElement();
+    }
+
+    private void writeElement(XMLStreamWriter writer, String name, String text) throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeCharacters(text == null ? "" : text);
+        writer.writeEndElement();
+    }
+
+    /**
+     * 根据启用的模板确定页面链接
+     */
+    private Links loadLinks(String baseUrl) {
+        final Links links = new Links(baseUrl);
+        TemplateQueryParam queryParam = new TemplateQueryParam();
+        queryParam.setEnable(true);
+        for(Template template: templateService.getAllTemplates(queryParam)) {
+            final String pattern = template.getPattern();
+            if(!pattern.contains("{")) {
+                links.pages.add(baseUrl + pattern);
+            } else if(TemplateNameEnum.ARTICLE.getName().equals(template.getName())) {
+                links.articlePattern = pattern;
+            } else if(TemplateNameEnum.MOMENT.getName().equals(template.getName())) {
+                links.momentPattern = pattern;
+            }
+        }
+        return links;
+    }
+
+    /**
+     * 页面链接
+     */
+    private static final class Links {
+
+        private final String baseUrl;
+
+        private final List<String> pages = new ArrayList<>();
+
+        private String articlePattern = TemplateNameEnum.ARTICLE.getPattern();
+
+        private String momentPattern;
+
+        private Links(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        private String article(Article article) {
+            final String idOrAlias = StringUtils.isEmpty(article.getAlias()) ? String.valueOf(article.getId()) : article.getAlias();
+            return baseUrl + articlePattern.replaceAll("\\{[^}/]+}", Matcher.quoteReplacement(idOrAlias));
+        }
+
+        private String moment(Moment moment) {
+            return baseUrl + momentPattern.replaceAll("\\{[^}/]+}", Matcher.quoteReplacement(String.valueOf(moment.getId())));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.qwli7.blog.web.resource;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 带内容摘要的静态资源永远不会改变，设置长时间缓存并且声明 immutable，浏览器刷新时也不再校验
+ * 不带摘要的路径仍然通过 Last-Modified 校验
+ * @author liqiwen
+ * @since 2.5
+ */
+public class ImmutableResourceInterceptor implements HandlerInterceptor {
+
+    /**
+     * ContentVersionStrategy 在文件名和后缀之间插入 -md5
+     */
+    private static final Pattern VERSIONED_PATH = Pattern.compile("-[0-9a-f]{32}\\.[^/]+$");
+
+    private final String cacheControl;
+
+    public ImmutableResourceInterceptor(Duration maxAge) {
+        this.cacheControl = CacheControl.maxAge(maxAge.getSeconds(), TimeUnit.SECONDS).cachePublic().getHeaderValue() + ", immutable";
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if(handler instanceof ResourceHttpRequestHandler && VERSIONED_PATH.matcher(request.getRequestURI()).find()) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        }
+        return true;
+    }
+}
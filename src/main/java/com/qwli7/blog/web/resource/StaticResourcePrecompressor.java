@@ -0,0 +1,217 @@
+package com.qwli7.blog.web.resource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 静态资源预压缩
+ * 启动时将 classpath:/static/ 下的文件复制到本地目录，并为文本类文件生成 .gz 文件，
+ * 请求时由 EncodedResourceResolver 根据 Accept-Encoding 直接返回预压缩的文件，不需要实时压缩，
+ * classpath 中已经不存在的文件(以及对应的 .gz 文件)启动时从本地目录中删除
+ * <p>
+ * JDK 中没有 brotli 的实现，这里只生成 gzip，如果构建时在目录中放入了 .br 文件，同样会被优先使用
+ * @author liqiwen
+ * @since 2.5
+ */
+@Component
+public class StaticResourcePrecompressor implements InitializingBean {
+
+    private static final String STATIC_LOCATION = "classpath:/static/";
+
+    private static final String GZIP_EXTENSION = ".gz";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass().getName());
+
+    private final StaticResourceProperties staticResourceProperties;
+
+    private final ResourcePatternResolver resourcePatternResolver = new PathMatchingResourcePatternResolver();
+
+    /**
+     * 预压缩是否成功，失败时只使用 classpath 中的资源
+     */
+    private volatile boolean available;
+
+    public StaticResourcePrecompressor(StaticResourceProperties staticResourceProperties) {
+        this.staticResourceProperties = staticResourceProperties;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        final long start = System.currentTimeMillis();
+        final Path directory = staticResourceProperties.getDirectory().toAbsolutePath().normalize();
+        int copied = 0;
+        int compressed = 0;
+        int deleted;
+        final Set<Path> retained = new HashSet<>();
+        try {
+            Files.createDirectories(directory);
+            final String root = resourcePatternResolver.getResource(STATIC_LOCATION).getURL().toString();
+            for(Resource resource: resourcePatternResolver.getResources(STATIC_LOCATION + "**")) {
+                final String url = resource.getURL().toString();
+                if(!url.startsWith(root) || url.endsWith("/") || !resource.isReadable()) {
+                    continue;
+                }
+                final Path target = directory.resolve(StringUtils.uriDecode(url.substring(root.length()), StandardCharsets.UTF_8)).normalize();
+                if(!target.startsWith(directory)) {
+                    continue;
+                }
+                final FileTime lastModified = FileTime.fromMillis(resource.lastModified());
+                retained.add(target);
+                if(isStale(target, lastModified, resource.contentLength())) {
+                    copy(resource, target, lastModified);
+                    copied++;
+                }
+                if(isCompressible(target)) {
+                    retained.add(gzipOf(target));
+                    if(compress(target, lastModified)) {
+                        compressed++;
+                    }
+                }
+            }
+            deleted = prune(directory, retained);
+            available = true;
+        } catch (IOException ex) {
+            logger.error("method<afterPropertiesSet> 静态资源预压缩失败，将直接使用 classpath 中的资源: [{}]", ex.getMessage(), ex);
+            return;
+        }
+        logger.info("method<afterPropertiesSet> 静态资源预压缩完成，复制[{}]个文件，压缩[{}]个文件，删除[{}]个文件，耗时[{}]ms",
+                copied, compressed, deleted, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 资源所在的位置，本地目录优先，classpath 兜底
+     * @return String[]
+     */
+    public String[] getLocations() {
+        if(!available) {
+            return new String[] {STATIC_LOCATION};
+        }
+        return new String[] {staticResourceProperties.getDirectory().toAbsolutePath().normalize().toUri().toString(), STATIC_LOCATION};
+    }
+
+    /**
+     * 删除 classpath 中已经不存在的文件，以及删除文件后留下的空目录
+     * @param directory 本地目录
+     * @param retained 需要保留的文件
+     * @return 删除的文件数量
+     */
+    private int prune(Path directory, Set<Path> retained) throws IOException {
+        final List<Path> paths;
+        try (Stream<Path> stream = Files.walk(directory)) {
+            // 先删除文件，再由深到浅删除目录
+            paths = stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+        }
+        int deleted = 0;
+        for(Path path: paths) {
+            if(path.equals(directory)) {
+                continue;
+            }
+            if(Files.isDirectory(path)) {
+                try (Stream<Path> children = Files.list(path)) {
+                    if(!children.findAny().isPresent()) {
+                        Files.delete(path);
+                    }
+                }
+                continue;
+            }
+            if(!retained.contains(path)) {
+                Files.delete(path);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private Path gzipOf(Path source) {
+        return source.resolveSibling(source.getFileName() + GZIP_EXTENSION);
+    }
+
+    private boolean isStale(Path target, FileTime lastModified, long size) throws IOException {
+        return !Files.exists(target) || Files.size(target) != size || !Files.getLastModifiedTime(target).equals(lastModified);
+    }
+
+    private void copy(Resource resource, Path target, FileTime lastModified) throws IOException {
+        Files.createDirectories(target.getParent());
+        final Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(tmp, lastModified);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private boolean isCompressible(Path path) {
+        final String extension = StringUtils.getFilenameExtension(path.getFileName().toString());
+        return extension != null && staticResourceProperties.getCompressExtensions().contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 生成 .gz 文件，已经是最新的或者压缩后没有变小时不生成
+     * @param source source
+     * @param lastModified 源文件修改时间
+     * @return 是否生成了 .gz 文件
+     */
+    private boolean compress(Path source, FileTime lastModified) throws IOException {
+        final Path gzip = gzipOf(source);
+        final long size = Files.size(source);
+        if(size < staticResourceProperties.getCompressMinSize().toBytes()) {
+            Files.deleteIfExists(gzip);
+            return false;
+        }
+        if(Files.exists(gzip) && Files.getLastModifiedTime(gzip).equals(lastModified)) {
+            return false;
+        }
+        final Path tmp = Files.createTempFile(source.getParent(), gzip.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = new BestCompressionGZIPOutputStream(Files.newOutputStream(tmp))) {
+                Files.copy(source, out);
+            }
+            if(Files.size(tmp) >= size) {
+                Files.deleteIfExists(gzip);
+                return false;
+            }
+            Files.setLastModifiedTime(tmp, lastModified);
+            Files.move(tmp, gzip, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * 预压缩只在启动时执行一次，使用最高压缩级别
+     */
+    private static final class BestCompressionGZIPOutputStream extends GZIPOutputStream {
+
+        private BestCompressionGZIPOutputStream(OutputStream out) throws IOException {
+            super(out, 8192);
+            def.setLevel(Deflater.BEST_COMPRESSION);
+        }
+    }
+}
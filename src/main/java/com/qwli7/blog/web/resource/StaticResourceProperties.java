@@ -0,0 +1,73 @@
+package com.qwli7.blog.web.resource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 静态资源配置
+ * @author liqiwen
+ * @since 2.5
+ */
+@Configuration
+@ConfigurationProperties(prefix = "blog.static-resource")
+public class StaticResourceProperties {
+
+    /**
+     * 静态资源及其预压缩文件的存放目录
+     */
+    private Path directory = Paths.get(System.getProperty("user.home")).resolve("blog/static");
+
+    /**
+     * 需要预压缩的文件后缀，图片和字体等已经压缩过的文件不需要
+     */
+    private List<String> compressExtensions = Arrays.asList("css", "js", "svg", "html", "json", "xml", "txt", "map", "ttf", "eot");
+
+    /**
+     * 小于该大小的文件不压缩
+     */
+    private DataSize compressMinSize = DataSize.ofBytes(1024);
+
+    /**
+     * 带版本号的资源的缓存时间
+     */
+    private Duration versionedMaxAge = Duration.ofDays(365);
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public List<String> getCompressExtensions() {
+        return compressExtensions;
+    }
+
+    public void setCompressExtensions(List<String> compressExtensions) {
+        this.compressExtensions = compressExtensions;
+    }
+
+    public DataSize getCompressMinSize() {
+        return compressMinSize;
+    }
+
+    public void setCompressMinSize(DataSize compressMinSize) {
+        this.compressMinSize = compressMinSize;
+    }
+
+    public Duration getVersionedMaxAge() {
+        return versionedMaxAge;
+    }
+
+    public void setVersionedMaxAge(Duration versionedMaxAge) {
+        this.versionedMaxAge = versionedMaxAge;
+    }
+}
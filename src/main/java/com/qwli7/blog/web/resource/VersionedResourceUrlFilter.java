@@ -0,0 +1,36 @@
+package com.qwli7.blog.web.resource;
+
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+import org.springframework.web.servlet.resource.ResourceUrlProviderExposingInterceptor;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+
+/**
+ * 将模板中 @{/static/...} 生成的链接改写成带内容摘要的版本
+ * 模板页面由 TemplateServiceImpl 这个 HandlerMapping 处理，不会经过 ResourceUrlProviderExposingInterceptor，
+ * 因此需要在这里提前放入 ResourceUrlProvider
+ * @author liqiwen
+ * @since 2.5
+ */
+public class VersionedResourceUrlFilter extends ResourceUrlEncodingFilter {
+
+    private final ResourceUrlProvider resourceUrlProvider;
+
+    public VersionedResourceUrlFilter(ResourceUrlProvider resourceUrlProvider) {
+        this.resourceUrlProvider = resourceUrlProvider;
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if(request.getAttribute(ResourceUrlProviderExposingInterceptor.RESOURCE_URL_PROVIDER_ATTR) == null) {
+            request.setAttribute(ResourceUrlProviderExposingInterceptor.RESOURCE_URL_PROVIDER_ATTR, resourceUrlProvider);
+        }
+        super.doFilter(request, response, filterChain);
+    }
+}
@@ -41,29 +41,29 @@ insert into blog_tag(name) values ('video');
 insert into blog_tag(name) values ('audio');
 
 /*init blog_moment*/
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态2', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动3', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态4', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态5', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态t', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态6', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态7', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态8', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态9', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态20', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态11', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态12', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态13', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态14', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态15', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态16', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态17', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态17', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态120', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态118', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态19', 0, 0, false, true);
-insert into blog_moment(content, hits, comments, is_private, allow_comment) values('测试动态112', 0, 0, false, true);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态2', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动3', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态4', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态5', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态t', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态6', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态7', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态8', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态9', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态20', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态11', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态12', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态13', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态14', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态15', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态16', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态17', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态17', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态120', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态118', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态19', 0, 0, false, true, CURRENT_DATE);
+insert into blog_moment(content, hits, comments, is_private, allow_comment, archive_date) values('测试动态112', 0, 0, false, true, CURRENT_DATE);
 
 
 insert into blog_blackip(ip) values('127.0.0.1');
@@ -6,6 +6,8 @@ CREATE TABLE blog_tag (
    name varchar(50) NOT NULL DEFAULT '' COMMENT '标签名称'
 );
 
+CREATE INDEX idx_tag_name ON blog_tag (name);
+
 CREATE TABLE blog_category (
   id int primary key auto_increment,
   create_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -21,6 +23,9 @@ CREATE TABLE blog_article_tag
     tag_id     int not null
 );
 
+CREATE INDEX idx_article_tag_article ON blog_article_tag (article_id, tag_id);
+CREATE INDEX idx_article_tag_tag ON blog_article_tag (tag_id);
+
 CREATE TABLE blog_blackip (
     id int primary key auto_increment,
     create_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -28,6 +33,8 @@ CREATE TABLE blog_blackip (
     ip varchar(50) NOT NULL DEFAULT '' COMMENT 'ip地址'
 );
 
+CREATE INDEX idx_blackip_ip ON blog_blackip (ip);
+
 CREATE TABLE blog_moment (
     id int primary key auto_increment,
     content varchar(2048),
@@ -36,9 +43,12 @@ CREATE TABLE blog_moment (
     create_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
     modify_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     is_private boolean default false,
-    allow_comment boolean default true
+    allow_comment boolean default true,
+    archive_date date not null comment '归档日期'
 );
 
+CREATE INDEX idx_moment_archive_date ON blog_moment (archive_date, create_at);
+
 create table blog_article (
     id int primary key auto_increment,
     title varchar(1024),
@@ -57,4 +67,29 @@ create table blog_article (
     category_id int not null
 );
 
+CREATE INDEX idx_article_alias ON blog_article (alias);
+CREATE INDEX idx_article_status_post_at ON blog_article (status, post_at);
+
+CREATE TABLE blog_comment (
+    id int primary key auto_increment,
+    parent_id int,
+    path varchar(255) NOT NULL DEFAULT '/' COMMENT '会话路径',
+    nickname varchar(16),
+    email varchar(128),
+    ip varchar(50),
+    admin boolean default false,
+    content varchar(1024),
+    module_id int not null,
+    module_name varchar(20) not null,
+    website varchar(255),
+    avatar varchar(255),
+    checking boolean default false,
+    status tinyint(1) comment '状态',
+    create_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    modify_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_comment_module_path ON blog_comment (module_name, module_id, path);
+CREATE INDEX idx_comment_ip ON blog_comment (ip);
+
 
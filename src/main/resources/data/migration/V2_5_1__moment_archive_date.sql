@@ -0,0 +1,8 @@
+/* 动态按天归档，归档日期单独存储并建立索引 */
+ALTER TABLE blog_moment ADD COLUMN archive_date date;
+
+UPDATE blog_moment SET archive_date = CAST(create_at AS DATE);
+
+ALTER TABLE blog_moment MODIFY COLUMN archive_date date NOT NULL;
+
+CREATE INDEX idx_moment_archive_date ON blog_moment (archive_date, create_at);
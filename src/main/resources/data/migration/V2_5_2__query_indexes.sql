@@ -0,0 +1,16 @@
+/* mapper 中常用查询条件的索引 */
+CREATE INDEX idx_article_alias ON blog_article (alias);
+
+CREATE INDEX idx_article_status_post_at ON blog_article (status, post_at);
+
+CREATE INDEX idx_article_tag_article ON blog_article_tag (article_id, tag_id);
+
+CREATE INDEX idx_article_tag_tag ON blog_article_tag (tag_id);
+
+CREATE INDEX idx_tag_name ON blog_tag (name);
+
+CREATE INDEX idx_comment_module ON blog_comment (module_name, module_id);
+
+CREATE INDEX idx_comment_ip ON blog_comment (ip);
+
+CREATE INDEX idx_blackip_ip ON blog_blackip (ip);
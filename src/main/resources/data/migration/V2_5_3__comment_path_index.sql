@@ -0,0 +1,4 @@
+/* 评论按会话路径分页加载，(module_name, module_id) 是新索引的前缀，旧索引可以删除 */
+CREATE INDEX idx_comment_module_path ON blog_comment (module_name, module_id, path);
+
+DROP INDEX idx_comment_module ON blog_comment;
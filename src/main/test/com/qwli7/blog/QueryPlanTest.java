@@ -0,0 +1,164 @@
+package com.qwli7.blog;
+
+import com.qwli7.blog.entity.Article;
+import com.qwli7.blog.entity.ArticleStatus;
+import com.qwli7.blog.entity.CommentModule;
+import com.qwli7.blog.entity.vo.CommentQueryParam;
+import com.qwli7.blog.entity.vo.HandledArticleQueryParam;
+import com.qwli7.blog.entity.vo.MomentQueryParam;
+import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 查询计划回归测试
+ * 在 H2 上执行 init.sql 并填充数据，对热点 mapper 语句执行 EXPLAIN，
+ * 如果热点查询退化成全表扫描则测试失败
+ * @author liqiwen
+ * @since 2.5
+ */
+public class QueryPlanTest {
+
+    private static Connection connection;
+
+    private static Configuration configuration;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:plan;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        ScriptUtils.executeSqlScript(connection, new ClassPathResource("data/init.sql"));
+        seed();
+        try (Reader reader = Resources.getResourceAsReader("mybatis/mybatis.xml")) {
+            configuration = new XMLConfigBuilder(reader).parse();
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    private static void seed() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 1; i <= 500; i++) {
+                statement.addBatch("INSERT INTO blog_article(title, content, alias, hits, comments, status, create_at, modify_at, post_at, category_id) " +
+                        "VALUES ('title" + i + "', 'content', 'alias-" + i + "', 0, 0, " + (i % 3) + ", now(), now(), now(), " + (i % 6 + 1) + ")");
+                statement.addBatch("INSERT INTO blog_article_tag(article_id, tag_id) VALUES (" + i + ", " + (i % 20 + 1) + ")");
+                statement.addBatch("INSERT INTO blog_article_tag(article_id, tag_id) VALUES (" + i + ", " + (i % 7 + 1) + ")");
+                statement.addBatch("INSERT INTO blog_comment(path, nickname, ip, content, module_id, module_name, status) " +
+                        "VALUES ('/', 'name', '10.0.0." + (i % 200) + "', 'content', " + (i % 50 + 1) + ", '" + (i % 2 == 0 ? "article" : "moment") + "', 0)");
+                statement.addBatch("INSERT INTO blog_moment(content, hits, comments, create_at, modify_at, archive_date) " +
+                        "VALUES ('content', 0, 0, DATEADD('DAY', -" + (i / 3) + ", now()), now(), CAST(DATEADD('DAY', -" + (i / 3) + ", now()) AS DATE))");
+                statement.addBatch("INSERT INTO blog_blackip(ip) VALUES ('192.168.0." + i + "')");
+            }
+            statement.executeBatch();
+            statement.execute("ANALYZE");
+        }
+    }
+
+    @Test
+    public void testArticleQueries() throws SQLException {
+        assertNoFullScan("com.qwli7.blog.mapper.ArticleMapper.findById", 10, "BLOG_ARTICLE");
+        assertNoFullScan("com.qwli7.blog.mapper.ArticleMapper.findByAlias", "alias-10", "BLOG_ARTICLE");
+
+        HandledArticleQueryParam queryParam = new HandledArticleQueryParam();
+        queryParam.setStatuses(Collections.singletonList(ArticleStatus.POST));
+        assertNoFullScan("com.qwli7.blog.mapper.ArticleMapper.count", queryParam, "BLOG_ARTICLE");
+
+        queryParam.setPage(1);
+        queryParam.setSize(10);
+        assertNoFullScan("com.qwli7.blog.mapper.ArticleMapper.findPage", queryParam, "BLOG_ARTICLE");
+    }
+
+    @Test
+    public void testArticleTagQueries() throws SQLException {
+        Article article = new Article();
+        article.setId(10);
+        assertNoFullScan("com.qwli7.blog.mapper.ArticleTagMapper.deleteByArticle", article, "BLOG_ARTICLE_TAG");
+    }
+
+    @Test
+    public void testTagQueries() throws SQLException {
+        assertNoFullScan("com.qwli7.blog.mapper.TagMapper.findByName", "maven", "BLOG_TAG");
+    }
+
+    @Test
+    public void testCommentQueries() throws SQLException {
+        CommentQueryParam queryParam = new CommentQueryParam();
+        queryParam.setCommentModule(new CommentModule(10, "article"));
+        queryParam.setPage(1);
+        queryParam.setSize(10);
+        assertNoFullScan("com.qwli7.blog.mapper.CommentMapper.count", queryParam, "BLOG_COMMENT");
+        assertNoFullScan("com.qwli7.blog.mapper.CommentMapper.findPage", queryParam, "BLOG_COMMENT");
+
+        Map<String, Object> descendantsParam = new HashMap<>();
+        descendantsParam.put("module", new CommentModule(10, "article"));
+        descendantsParam.put("rootIds", Arrays.asList(1, 2, 3));
+        assertNoFullScan("com.qwli7.blog.mapper.CommentMapper.findDescendants", descendantsParam, "BLOG_COMMENT");
+        assertNoFullScan("com.qwli7.blog.mapper.CommentMapper.deleteByModule", new CommentModule(10, "article"), "BLOG_COMMENT");
+        assertNoFullScan("com.qwli7.blog.mapper.CommentMapper.findLatestCommentByIp", "10.0.0.1", "BLOG_COMMENT");
+    }
+
+    @Test
+    public void testBlackIpQueries() throws SQLException {
+        assertNoFullScan("com.qwli7.blog.mapper.BlackIpMapper.findByIp", "192.168.0.1", "BLOG_BLACKIP");
+    }
+
+    @Test
+    public void testMomentQueries() throws SQLException {
+        MomentQueryParam queryParam = new MomentQueryParam();
+        queryParam.setPage(1);
+        queryParam.setSize(10);
+        assertNoFullScan("com.qwli7.blog.mapper.MomentMapper.findById", 10, "BLOG_MOMENT");
+        assertNoFullScan("com.qwli7.blog.mapper.MomentMapper.findLatestMoments", queryParam, "BLOG_MOMENT");
+        // 归档查询只读取 archive_date 索引，按日期取动态时也走该索引
+        assertNoFullScan("com.qwli7.blog.mapper.MomentMapper.countArchive", queryParam, "BLOG_MOMENT");
+        assertNoFullScan("com.qwli7.blog.mapper.MomentMapper.findArchivePage", queryParam, "BLOG_MOMENT");
+    }
+
+    /**
+     * 对 mapper 语句执行 EXPLAIN，断言指定的表没有走全表扫描
+     * @param statementId mapper 语句 id
+     * @param parameter 参数
+     * @param table 需要走索引的表
+     */
+    private void assertNoFullScan(String statementId, Object parameter, String table) throws SQLException {
+        final MappedStatement mappedStatement = configuration.getMappedStatement(statementId);
+        final BoundSql boundSql = mappedStatement.getBoundSql(parameter);
+        final String plan;
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            new DefaultParameterHandler(mappedStatement, parameter, boundSql).setParameters(ps);
+            try (ResultSet rs = ps.executeQuery()) {
+                StringBuilder sb = new StringBuilder();
+                while (rs.next()) {
+                    sb.append(rs.getString(1)).append('\n');
+                }
+                plan = sb.toString();
+            }
+        }
+        assertFalse(plan.contains("PUBLIC." + table + ".tableScan"),
+                () -> statementId + " 在 " + table + " 上退化成了全表扫描:\n" + plan);
+    }
+}
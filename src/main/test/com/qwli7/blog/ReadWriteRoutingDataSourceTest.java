@@ -0,0 +1,102 @@
+package com.qwli7.blog;
+
+import com.qwli7.blog.datasource.ReadWriteRoutingDataSource;
+import com.qwli7.blog.datasource.ReplicaLagMonitor;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 读写分离数据源测试
+ * 使用两个 H2 内存库分别模拟主库和从库
+ * @author liqiwen
+ * @since 2.5
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    private TransactionTemplate readWriteTemplate;
+
+    private JdbcTemplate replicaTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        final JdbcDataSource primary = createDataSource("primary");
+        final JdbcDataSource replica = createDataSource("replica");
+        replicaTemplate = new JdbcTemplate(replica);
+        replicaTemplate.execute("CREATE TABLE IF NOT EXISTS replica_lag(seconds INT)");
+        replicaTemplate.execute("DELETE FROM replica_lag");
+        replicaTemplate.execute("INSERT INTO replica_lag VALUES (0)");
+
+        routingDataSource = new ReadWriteRoutingDataSource(primary, replica);
+        routingDataSource.afterPropertiesSet();
+        final LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        final DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readOnlyTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTemplate.setReadOnly(true);
+        readWriteTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private JdbcDataSource createDataSource(String name) {
+        final JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        final JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS db_name(name VARCHAR(20))");
+        template.execute("DELETE FROM db_name");
+        template.update("INSERT INTO db_name VALUES (?)", name);
+        return dataSource;
+    }
+
+    private String currentDatabase(TransactionTemplate template) {
+        return template.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM db_name", String.class));
+    }
+
+    @Test
+    public void testRouting() {
+        assertEquals("replica", currentDatabase(readOnlyTemplate));
+        assertEquals("primary", currentDatabase(readWriteTemplate));
+        // 事务之外使用主库
+        assertEquals("primary", jdbcTemplate.queryForObject("SELECT name FROM db_name", String.class));
+    }
+
+    @Test
+    public void testFallbackWhenReplicaLagging() {
+        final ReplicaLagMonitor monitor = new ReplicaLagMonitor(routingDataSource, "SELECT seconds FROM replica_lag", 5);
+        monitor.check();
+        assertTrue(routingDataSource.isReplicaAvailable());
+
+        replicaTemplate.update("UPDATE replica_lag SET seconds = 30");
+        monitor.check();
+        assertFalse(routingDataSource.isReplicaAvailable());
+        assertEquals("primary", currentDatabase(readOnlyTemplate));
+
+        replicaTemplate.update("UPDATE replica_lag SET seconds = 1");
+        monitor.check();
+        assertEquals("replica", currentDatabase(readOnlyTemplate));
+    }
+
+    @Test
+    public void testFallbackWhenReplicaUnreachable() {
+        final ReplicaLagMonitor monitor = new ReplicaLagMonitor(routingDataSource, "SELECT seconds FROM not_exists", 5);
+        monitor.check();
+        assertFalse(routingDataSource.isReplicaAvailable());
+        assertEquals("primary", currentDatabase(readOnlyTemplate));
+        assertEquals(1L, routingDataSource.getMetrics().get("fallbacks"));
+    }
+}
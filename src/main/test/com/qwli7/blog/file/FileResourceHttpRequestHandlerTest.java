@@ -0,0 +1,238 @@
+package com.qwli7.blog.file;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.boot.autoconfigure.web.ResourceProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 文件 Range 请求测试
+ * @author liqiwen
+ * @since 2.5
+ */
+public class FileResourceHttpRequestHandlerTest {
+
+    private Path file;
+
+    private byte[] content;
+
+    private FileResourceHttpRequestHandler handler;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        content = new byte[100 * 1024];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i % 251);
+        }
+        file = Files.createTempFile("range", ".mp4");
+        Files.write(file, content);
+
+        FileService fileService = Mockito.mock(FileService.class);
+        Mockito.when(fileService.getProcessedFile(Mockito.anyString(), Mockito.anyBoolean()))
+                .thenAnswer(invocation -> Optional.of(new ReadablePathResource(file)));
+        handler = new FileResourceHttpRequestHandler(new FileResourceResolver(fileService), new ResourceProperties());
+        handler.afterPropertiesSet();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void testFullContent() throws Exception {
+        MockHttpServletResponse response = handle(null);
+        assertEquals(200, response.getStatus());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(content.length, response.getContentLengthLong());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testSingleRange() throws Exception {
+        MockHttpServletResponse response = handle("bytes=1000-1999");
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 1000-1999/" + content.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(1000, response.getContentLengthLong());
+        assertArrayEquals(Arrays.copyOfRange(content, 1000, 2000), response.getContentAsByteArray());
+
+        response = handle("bytes=-500");
+        assertEquals(206, response.getStatus());
+        assertArrayEquals(Arrays.copyOfRange(content, content.length - 500, content.length), response.getContentAsByteArray());
+    }
+
+    @Test
+    public void testMultipleRanges() throws Exception {
+        MockHttpServletResponse response = handle("bytes=0-9,50000-50009");
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+        final byte[] body = response.getContentAsByteArray();
+        assertEquals(body.length, response.getContentLengthLong());
+
+        final String text = new String(body, StandardCharsets.ISO_8859_1);
+        assertTrue(text.contains("Content-Range: bytes 0-9/" + content.length));
+        assertTrue(text.contains("Content-Range: bytes 50000-50009/" + content.length));
+        final String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+        assertTrue(text.endsWith("\r\n--" + boundary + "--"));
+
+        final int secondPart = text.indexOf("bytes 50000-50009/");
+        final int dataStart = text.indexOf("\r\n\r\n", secondPart) + 4;
+        assertArrayEquals(Arrays.copyOfRange(content, 50000, 50010), Arrays.copyOfRange(body, dataStart, dataStart + 10));
+    }
+
+    @Test
+    public void testUnsatisfiableRange() throws Exception {
+        MockHttpServletResponse response = handle("bytes=200000-300000");
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */" + content.length, response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    public void testNotModified() throws Exception {
+        MockHttpServletRequest request = newRequest(null);
+        request.addHeader(HttpHeaders.IF_MODIFIED_SINCE, Files.getLastModifiedTime(file).toMillis());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    public void testIfRange() throws Exception {
+        final long lastModified = Files.getLastModifiedTime(file).toMillis();
+        MockHttpServletRequest request = newRequest("bytes=1000-1999");
+        request.addHeader(HttpHeaders.IF_RANGE, lastModified);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        assertEquals(206, response.getStatus());
+        assertEquals(1000, response.getContentLengthLong());
+
+        // 文件已经变化，返回整个文件
+        request = newRequest("bytes=1000-1999");
+        request.addHeader(HttpHeaders.IF_RANGE, lastModified - 60_000);
+        response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+
+        request = newRequest("bytes=1000-1999");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"other\"");
+        response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    /**
+     * 吞吐量对比，手动运行: 原来的 ResourceHttpRequestHandler(流复制) 与 FileChannel 输出
+     * 输出到丢弃数据的 ServletOutputStream，只比较服务端读取和写出的开销
+     */
+    public static void main(String[] args) throws Exception {
+        final Path file = Files.createTempFile("throughput", ".mp4");
+        try {
+            final byte[] block = new byte[1024 * 1024];
+            for (int i = 0; i < 256; i++) {
+                Files.write(file, block, StandardOpenOption.APPEND);
+            }
+            FileService fileService = Mockito.mock(FileService.class);
+            Mockito.when(fileService.getProcessedFile(Mockito.anyString(), Mockito.anyBoolean()))
+                    .thenAnswer(invocation -> Optional.of(new ReadablePathResource(file)));
+            final FileResourceResolver resolver = new FileResourceResolver(fileService);
+
+            ResourceHttpRequestHandler streamHandler = new ResourceHttpRequestHandler();
+            streamHandler.setResourceResolvers(Collections.singletonList(resolver));
+            streamHandler.getLocations().add(null);
+            streamHandler.afterPropertiesSet();
+            FileResourceHttpRequestHandler channelHandler = new FileResourceHttpRequestHandler(resolver, new ResourceProperties());
+            channelHandler.afterPropertiesSet();
+
+            for (String range : new String[]{null, "bytes=0-", "bytes=0-1048575,134217728-"}) {
+                System.out.printf("range [%s] stream: %d MB/s, channel: %d MB/s%n", range,
+                        measure(streamHandler, range, Files.size(file)), measure(channelHandler, range, Files.size(file)));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long measure(ResourceHttpRequestHandler handler, String range, long size) throws Exception {
+        final int rounds = 20;
+        long start = 0;
+        for (int i = -5; i < rounds; i++) {
+            if (i == 0) {
+                start = System.nanoTime();
+            }
+            MockHttpServletRequest request = newRequest(range);
+            handler.handleRequest(request, new DiscardingResponse());
+        }
+        final long nanos = System.nanoTime() - start;
+        return size * rounds * 1000 / nanos;
+    }
+
+    private static MockHttpServletRequest newRequest(String range) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/video.mp4");
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "video.mp4");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        return request;
+    }
+
+    private MockHttpServletResponse handle(String range) throws Exception {
+        MockHttpServletRequest request = newRequest(range);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        return response;
+    }
+
+    /**
+     * 丢弃输出内容的 response
+     */
+    private static final class DiscardingResponse extends MockHttpServletResponse {
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+    }
+}
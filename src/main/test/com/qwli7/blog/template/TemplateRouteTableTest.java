@@ -0,0 +1,77 @@
+package com.qwli7.blog.template;
+
+import com.qwli7.blog.entity.Template;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 模板路由表测试
+ * @author liqiwen
+ * @since 2.5
+ */
+public class TemplateRouteTableTest {
+
+    private final TemplateRouteTable routeTable = TemplateRouteTable.of(Arrays.asList(
+            template("index", "/"),
+            template("article", "/article/{idOrAlias}"),
+            template("about", "/article/about"),
+            template("moments", "/moments"),
+            template("moment", "/moment/{id}"),
+            template("archive", "/archive/{year}/{month}"),
+            template("page", "/page-{name}.html"),
+            template("docs", "/docs/**")));
+
+    @Test
+    public void testLiteral() {
+        assertEquals("index", routeTable.match("/").getTemplate().getName());
+        assertEquals("moments", routeTable.match("/moments").getTemplate().getName());
+        assertNull(routeTable.match("/moments/"));
+        assertNull(routeTable.match("/unknown"));
+    }
+
+    @Test
+    public void testLiteralBeforeVariable() {
+        assertEquals("about", routeTable.match("/article/about").getTemplate().getName());
+        final TemplateRouteTable.RouteMatch match = routeTable.match("/article/hello-world");
+        assertEquals("article", match.getTemplate().getName());
+        assertEquals(Collections.singletonMap("idOrAlias", "hello-world"), match.getVariables());
+    }
+
+    @Test
+    public void testVariables() {
+        final TemplateRouteTable.RouteMatch match = routeTable.match("/archive/2021/05");
+        assertEquals("archive", match.getTemplate().getName());
+        assertEquals("2021", match.getVariables().get("year"));
+        assertEquals("05", match.getVariables().get("month"));
+        assertNull(routeTable.match("/archive/2021"));
+    }
+
+    @Test
+    public void testFallback() {
+        final TemplateRouteTable.RouteMatch match = routeTable.match("/page-links.html");
+        assertEquals("page", match.getTemplate().getName());
+        assertEquals("links", match.getVariables().get("name"));
+        assertEquals("docs", routeTable.match("/docs/a/b").getTemplate().getName());
+    }
+
+    @Test
+    public void testRegister() {
+        final TemplateRouteTable registered = routeTable.register(template("tags", "/tags"));
+        assertEquals("tags", registered.match("/tags").getTemplate().getName());
+        assertNull(routeTable.match("/tags"));
+        assertTrue(registered.getPatterns().contains("/tags"));
+    }
+
+    private static Template template(String name, String pattern) {
+        Template template = new Template();
+        template.setName(name);
+        template.setPattern(pattern);
+        return template;
+    }
+}